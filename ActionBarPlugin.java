@@ -5,6 +5,7 @@
 
 package com.polychrom.cordova;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -13,20 +14,28 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import android.annotation.TargetApi;
 import android.app.ActionBar;
 import android.app.Activity;
 import android.app.FragmentTransaction;
-import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Rect;
+import android.graphics.Typeface;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
-import android.os.AsyncTask;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils.TruncateAt;
 import android.util.DisplayMetrics;
+import android.util.SparseArray;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -43,8 +52,11 @@ import android.widget.LinearLayout.LayoutParams;
 import android.widget.SpinnerAdapter;
 import android.widget.TextView;
 
+import org.apache.cordova.CordovaWebView;
 import org.apache.cordova.api.CallbackContext;
+import org.apache.cordova.api.CordovaInterface;
 import org.apache.cordova.api.CordovaPlugin;
+import org.apache.cordova.api.PluginResult;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -58,124 +70,349 @@ import org.json.JSONObject;
 @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
 public class ActionBarPlugin extends CordovaPlugin
 {
-	JSONArray menu_definition = null;
+	Definition menu_definition = null;
 	Menu menu = null;
-	HashMap<MenuItem, String> menu_callbacks = new HashMap<MenuItem, String>();
+	
+	// Bumped for every setMenu that actually changes the definition, the menu is only rebuilt when it's behind
+	int menu_generation = 0;
+	int built_generation = -1;
+	// Clickable (non sub-menu) items by item id, the path to the clicked definition is only worked out when a click arrives
+	SparseArray<MenuNode> menu_callbacks = new SparseArray<MenuNode>();
+	
+	// A built menu item, kept so later definitions can be reconciled against what's already in the menu
+	static class MenuNode
+	{
+		String key;
+		int item_id;
+		int order;
+		int index;
+		// Containing sub-menu, or null at the top level (together with index this gives the item's path in the definition)
+		MenuNode parent;
+		boolean is_submenu;
+		String text;
+		String icon;
+		int show;
+		String header_title;
+		String header_icon;
+		final Object header_group = new Object();
+		MenuItem item;
+		SubMenu submenu;
+		ArrayList<MenuNode> children;
+	}
+	
+	// The menu the current nodes were built into
+	Menu built_menu = null;
+	final ArrayList<MenuNode> menu_nodes = new ArrayList<MenuNode>();
+	int next_item_id = 1;
+	
+	// Menu orders are limited to 16 bits (the rest is the category), leave gaps so items can be inserted without re-adding others
+	static final int ORDER_STEP = 64;
+	static final int ORDER_LIMIT = 0x10000;
 
 	HashMap<Integer, ActionBar.Tab> tabs = new HashMap<Integer, ActionBar.Tab>();
-	HashMap<MenuItem, String> tab_callbacks = new HashMap<MenuItem, String>();
+	// Tab bar currently shown, and the tabs built for it
+	Definition tabs_definition = null;
+	final ArrayList<ActionBar.Tab> built_tabs = new ArrayList<ActionBar.Tab>();
+	
+	// A snapshot of the action bar's configuration (see pushState/popState)
+	static class BarState
+	{
+		CharSequence title;
+		CharSequence subtitle;
+		int display_options;
+		int navigation_mode;
+		int selected;
+		Definition menu;
+		// Menu icons that were showing, by URI, so restoring the menu doesn't load them again
+		HashMap<String, Drawable> menu_icons;
+		Definition tabs;
+		// The tab objects themselves are re-added, icons and all
+		ActionBar.Tab[] tab_views;
+		Definition navigation;
+	}
+	
+	final ArrayList<BarState> states = new ArrayList<BarState>();
+	// Icons from a popped state for the next menu build, if any
+	HashMap<String, Drawable> restored_icons = null;
+	
+	// Menus and tab bars registered by name (registerMenu/registerTabs), so switching screens doesn't resend them
+	final HashMap<String, Definition> menu_templates = new HashMap<String, Definition>();
+	final HashMap<String, Definition> tab_templates = new HashMap<String, Definition>();
+	
+	/**! Where relative icon paths were found, for a set of base paths (those of the current page).
+	 * 
+	 * Each path maps to the location it was first found at, or to MISSING if it wasn't found relative to any base, so repeated
+	 * lookups (hits or misses) don't probe the file system again. A new Resolution replaces the old one whenever the page URL
+	 * changes, a lookup in flight at the time simply completes against the one it started with.
+	 */
+	static class Resolution
+	{
+		static final String MISSING = "";
+		
+		final String[] bases;
+		private final HashMap<String, String> locations = new HashMap<String, String>();
+		
+		Resolution(String[] bases)
+		{
+			this.bases = bases;
+		}
+		
+		synchronized String get(String path)
+		{
+			return locations.get(path);
+		}
+		
+		synchronized void put(String path, String location)
+		{
+			locations.put(path, location);
+		}
+	}
+	
+	volatile Resolution resolution = new Resolution(new String[0]);
+	
+	// Files in the page's asset tree, when the page is served from the assets
+	volatile AssetIndex asset_index = null;
+	
+	// Decoded icons, keyed by resolved location
+	final IconCache icon_cache = IconCache.createDefault();
+	
+	// Sprite sheet manifests (see IconAtlas), by resolved location
+	final HashMap<String, IconAtlas> atlases = new HashMap<String, IconAtlas>();
+	
+	// Downloaded (http/https) icons, persisted across sessions
+	HttpIconCache http_cache = null;
+	
+	// Background icon loading, grouped by what the icons are destined for (menu items are grouped per item, see MenuNode)
+	static final String TAB_ICONS = "tabs";
+	static final String NAVIGATION_ICONS = "navigation";
+	static final String HOME_ICON = "icon";
+	static final String LOGO_ICON = "logo";
+	static final String TEMPLATE_ICONS = "templates";
 	
-	// A set of base paths to check for relative paths from
-	String bases[];
+	final IconLoader icon_loader = IconLoader.create(new IconLoader.Source()
+	{
+		public Drawable load(String uri, int size)
+		{
+			return getDrawableForURI(uri, size);
+		}
+		
+		public Drawable cached(String uri, int size)
+		{
+			return getDrawableForURI(uri, size, true);
+		}
+	});
+	
+	// Pixel sizes icons are decoded at: action items, tabs & list navigation (32dp), and home icon/logo (action bar height)
+	int icon_size = 32;
+	int logo_size = 48;
+	int display_density = DisplayMetrics.DENSITY_DEFAULT;
+	
+	// Icon font glyphs (see GlyphRenderer), drawn in the action bar's menu text colour unless the URI gives one (also SVG currentColor)
+	GlyphRenderer glyph_renderer = null;
+	int glyph_color = 0xFFFFFFFF;
 	
 	class IconTextView extends LinearLayout
 	{
 		final ImageView Icon;
 		final TextView Text;
+		
+		// The item currently shown (see NavigationAdapter.bind)
+		NavigationAdapter.Item item = null;
 
-		IconTextView(Context context, Drawable icon, String text)
+		IconTextView(LayoutInflater inflater)
 		{
-			super(context);
-			Icon = new ImageView(context);
+			super(inflater.getContext());
+			Icon = new ImageView(inflater.getContext());
 			Icon.setPadding(8, 8, 8, 8);
-			Icon.setImageDrawable(icon);
 
-            LayoutInflater inflater = LayoutInflater.from(context);
 			Text = (TextView)inflater.inflate(android.R.layout.simple_spinner_dropdown_item, this, false);
-			Text.setText(text);
 
 			addView(Icon, new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.MATCH_PARENT));
 			addView(Text);
+			setLayoutParams(new AbsListView.LayoutParams(AbsListView.LayoutParams.MATCH_PARENT, AbsListView.LayoutParams.WRAP_CONTENT));
 		}
 	}
 	
+	/**! List navigation items, built for lists of any length.
+	 * 
+	 * Items are only read from the definition when they're first needed, and icons are only loaded for drop-down rows that are
+	 * actually shown: a load starts when a row is bound to an item and is cancelled if the row is re-used for another item
+	 * before it arrives. Only the icons of the most recently shown items are kept (the rest can be reloaded from the icon cache),
+	 * so memory use doesn't grow with the list, and setItems costs the same for ten items as for ten thousand.
+	 */
 	class NavigationAdapter extends BaseAdapter implements SpinnerAdapter
 	{
 		class Item
 		{
 			Drawable Icon = null;
 			String Text = "";
+			String icon_uri = null;
+			boolean loading = false;
+			
+			// Drop-down row currently showing this item, if any
+			IconTextView view = null;
 		}
 		
+		// Icons of the first rows are loaded up front (behind anything on screen) so the drop-down usually opens complete
+		static final int PREFETCH_ROWS = 12;
+		// Number of items that keep their icon once their row has gone
+		static final int KEPT_ICONS = 64;
+		
 		final ActionBarPlugin plugin;
-		ArrayList<Item> items = null;
+		Definition definition = null;
+		Item[] items = null;
 		
-		int listPreferredItemHeight = -1;
-
-		class GetIconTask extends AsyncTask<String, Void, Drawable>
+		// Items with an icon, least recently shown first
+		final LinkedHashMap<Item, Boolean> icons = new LinkedHashMap<Item, Boolean>(KEPT_ICONS * 2, 0.75f, true)
 		{
-			public final Item item;
-			public Exception exception = null;
-			
-			GetIconTask(Item item)
-			{
-				this.item = item;
-			}
-
-			@Override
-			protected Drawable doInBackground(String... uris)
-			{
-				return getDrawableForURI(uris[0]);
-			}
-			
 			@Override
-			protected void onPostExecute(Drawable icon)
+			protected boolean removeEldestEntry(Map.Entry<Item, Boolean> eldest)
 			{
-				if(icon != null)
+				if(size() <= KEPT_ICONS)
+				{
+					return false;
+				}
+				
+				// Still on screen, keep it
+				if(eldest.getKey().view != null)
 				{
-					item.Icon = icon;
+					return false;
 				}
+				
+				eldest.getKey().Icon = null;
+				return true;
 			}
 		};
 		
+		// Inflates with the action bar's theme, looked up once
+		LayoutInflater inflater = null;
+
 		NavigationAdapter(ActionBarPlugin plugin)
 		{
 			this.plugin = plugin;
 		}
 		
-		public void setItems(JSONArray new_items)
+		public void setItems(Definition new_items)
 		{
-			if(new_items == null || new_items.length() == 0)
+			if(items != null)
 			{
-				this.items = null;
-				return;
+				for(Item item: items)
+				{
+					if(item != null && item.loading)
+					{
+						icon_loader.cancel(item);
+					}
+				}
 			}
+			
+			icon_loader.cancel(NAVIGATION_ICONS);
+			icons.clear();
 
-			final Activity ctx = (Activity)plugin.cordova;
-			items = new ArrayList<Item>();
+			if(new_items == null || new_items.top_count == 0)
+			{
+				definition = null;
+				items = null;
+				notifyDataSetChanged();
+				return;
+			}
 
-			for(int i = 0; i < new_items.length(); ++i)
+			definition = new_items;
+			items = new Item[new_items.top_count];
+			
+			// Warm the cache for the first rows, the loads themselves are kept by the cache
+			for(int i = 0; i < Math.min(PREFETCH_ROWS, items.length); ++i)
 			{
-				try
+				Item item = getItem(i);
+				if(item.icon_uri != null)
 				{
-					JSONObject definition = new_items.getJSONObject(i);
-					
-					Item item = new Item();
-					if(!definition.isNull("text")) item.Text = definition.getString("text");
-					if(!definition.isNull("icon"))
+					icon_loader.load(item.icon_uri, icon_size, NAVIGATION_ICONS, new IconLoader.Target()
 					{
-						new GetIconTask(item).execute(definition.getString("icon"));
-					}
-					
-					items.add(item);
+						public void onIconLoaded(Drawable icon)
+						{
+						}
+					}, IconLoader.PRIORITY_PREFETCH);
 				}
-				catch(JSONException e)
+			}
+			
+			notifyDataSetChanged();
+		}
+		
+		private LayoutInflater getInflater()
+		{
+			if(inflater == null)
+			{
+				final Activity ctx = (Activity)plugin.cordova;
+				inflater = LayoutInflater.from(ctx.getActionBar().getThemedContext());
+			}
+			
+			return inflater;
+		}
+		
+		// Show an item in a drop-down row, (re)loading its icon if it doesn't have it
+		private void bind(IconTextView view, final Item item)
+		{
+			final Item previous = view.item;
+			// Unless ListView has already moved the previous item to another row (rows can swap views)
+			if(previous != null && previous != item && previous.view == view)
+			{
+				previous.view = null;
+				
+				// Scrolled away before it arrived
+				if(previous.loading)
 				{
-					// Ignore, 
+					previous.loading = false;
+					icon_loader.cancel(previous);
 				}
 			}
+			
+			view.item = item;
+			item.view = view;
+			view.Icon.setImageDrawable(item.Icon);
+			view.Text.setText(item.Text);
+			
+			if(item.Icon != null)
+			{
+				icons.get(item);
+			}
+			else if(item.icon_uri != null && !item.loading)
+			{
+				item.loading = true;
+				icon_loader.load(item.icon_uri, icon_size, item, new IconLoader.Target()
+				{
+					public void onIconLoaded(Drawable icon)
+					{
+						item.loading = false;
+						item.Icon = icon;
+						icons.put(item, Boolean.TRUE);
+						
+						// Only the row showing it needs updating
+						if(item.view != null && item.view.item == item)
+						{
+							item.view.Icon.setImageDrawable(icon);
+						}
+					}
+				});
+			}
 		}
 
 		@Override
 		public int getCount()
 		{
-			return items == null? 0 : items.size();
+			return items == null? 0 : items.length;
 		}
 
 		@Override
-		public Object getItem(int position)
+		public Item getItem(int position)
 		{
-			return items.get(position);
+			Item item = items[position];
+			if(item == null)
+			{
+				item = items[position] = new Item();
+				if(definition.texts[position] != null) item.Text = definition.texts[position];
+				item.icon_uri = definition.icons[position];
+			}
+			
+			return item;
 		}
 
 		@Override
@@ -187,56 +424,288 @@ public class ActionBarPlugin extends CordovaPlugin
 		@Override
 		public View getView(int position, View convertView, ViewGroup parent)
 		{
-			final Activity ctx = (Activity)plugin.cordova;
-            LayoutInflater inflater = LayoutInflater.from(ctx.getActionBar().getThemedContext());
-			TextView view = (TextView)inflater.inflate(android.R.layout.simple_spinner_item, parent, false);
-			view.setText(items.get(position).Text);
+			TextView view = convertView instanceof TextView? (TextView)convertView : (TextView)getInflater().inflate(android.R.layout.simple_spinner_item, parent, false);
+			view.setText(getItem(position).Text);
 			return view;
 		}
 
 		@Override
 		public View getDropDownView(int position, View convertView, ViewGroup parent)
 		{
-			final Activity ctx = (Activity)plugin.cordova;
-			final Item item = items.get(position);
-			
-			IconTextView view;
-			
-			if(convertView instanceof IconTextView)
+			IconTextView view = convertView instanceof IconTextView? (IconTextView)convertView : new IconTextView(getInflater());
+			bind(view, getItem(position));
+			return view;
+		}
+	}
+	
+	NavigationAdapter navigation_adapter = new NavigationAdapter(this);
+	
+	@Override
+	public void initialize(CordovaInterface cordova, CordovaWebView webView)
+	{
+		super.initialize(cordova, webView);
+		
+		final Activity ctx = (Activity)cordova;
+		
+		DisplayMetrics metrics = ctx.getResources().getDisplayMetrics();
+		display_density = metrics.densityDpi;
+		icon_size = (int)TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 32, metrics);
+		
+		TypedValue value = new TypedValue();
+		if(ctx.getTheme().resolveAttribute(android.R.attr.actionBarSize, value, true))
+		{
+			logo_size = TypedValue.complexToDimensionPixelSize(value.data, metrics);
+		}
+		else
+		{
+			logo_size = (int)TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 48, metrics);
+		}
+		
+		TypedArray attributes = ctx.getTheme().obtainStyledAttributes(new int[] { android.R.attr.actionMenuTextColor });
+		glyph_color = attributes.getColor(0, glyph_color);
+		attributes.recycle();
+		
+		glyph_renderer = new GlyphRenderer(ctx.getAssets(), new File(ctx.getCacheDir(), "actionbar-fonts"), new GlyphRenderer.Opener()
+		{
+			public InputStream open(String location) throws IOException
 			{
-				view = (IconTextView)convertView;
-				view.Icon.setImageDrawable(item.Icon);
-				view.Text.setText(item.Text);
+				return openIconStream(location);
 			}
-			else
+		});
+		
+		http_cache = new HttpIconCache(new File(ctx.getCacheDir(), "actionbar-icons"), HttpIconCache.DEFAULT_MAX_BYTES, cordova.getThreadPool());
+		http_cache.setListener(new HttpIconCache.Listener()
+		{
+			@Override
+			public void onIconChanged(String url)
 			{
-				view = new IconTextView(ctx.getActionBar().getThemedContext(), item.Icon, item.Text);
+				// Next use will decode the fresh copy
+				icon_cache.remove(url);
+				glyph_renderer.forget(url);
+				synchronized(atlases)
+				{
+					atlases.remove(url);
+				}
 			}
-
-			// Get preferred list height
-			if(listPreferredItemHeight == -1)
+		});
+	}
+	
+	@Override
+	public void onReset()
+	{
+		// The page that was listening is gone, the next one registers its own channel
+		event_channel = null;
+		
+		// As are the states it pushed and the templates it registered (actionbar.js has lost their callbacks)
+		((Activity)cordova).runOnUiThread(new Runnable()
+		{
+			public void run()
 			{
-				DisplayMetrics metrics = new DisplayMetrics();
-				ctx.getWindowManager().getDefaultDisplay().getMetrics(metrics);
-				TypedValue value = new TypedValue();
-				ctx.getTheme().resolveAttribute(android.R.attr.listPreferredItemHeight, value, true);
-				listPreferredItemHeight = (int)value.getDimension(metrics);
+				states.clear();
+				menu_templates.clear();
+				tab_templates.clear();
+			}
+		});
+	}
+	
+	@Override
+	public void onDestroy()
+	{
+		icon_loader.shutdown();
+		super.onDestroy();
+	}
+	
+	/**! Events (clicks, tab changes...) are delivered to actionbar.js over a single kept callback, registered by the "listen" action.
+	 * 
+	 * Each event is a small object rather than a script: { type: 'menu', path: [1, 0] }, { type: 'tab', event: 'select', index: 2 },
+	 * { type: 'navigation', index: 0 } or { type: 'home' }, which actionbar.js maps back onto the definitions it holds. Results sent
+	 * over the channel are queued in order, so events arrive in the order they happened however quickly they fire.
+	 * 
+	 * Without a listener (e.g. an older actionbar.js), events fall back to evaluating the equivalent script in the web view.
+	 */
+	volatile CallbackContext event_channel = null;
+	
+	/** @param fields The event's keys and values, alternating. */
+	private void sendEvent(Object... fields)
+	{
+		final CallbackContext channel = event_channel;
+		if(channel == null)
+		{
+			// Reset since the caller checked
+			return;
+		}
+		
+		JSONObject event = new JSONObject();
+		try
+		{
+			for(int i = 0; i < fields.length; i += 2)
+			{
+				event.put((String)fields[i], fields[i + 1]);
+			}
+		}
+		catch (JSONException e)
+		{
+			// Only thrown for null keys
+		}
+		
+		PluginResult result = new PluginResult(PluginResult.Status.OK, event);
+		result.setKeepCallback(true);
+		channel.sendPluginResult(result);
+	}
+	
+	void sendMenuEvent(MenuNode node)
+	{
+		if(event_channel == null)
+		{
+			StringBuilder js_item = new StringBuilder("[" + node.index + "]");
+			for(MenuNode n = node.parent; n != null; n = n.parent)
+			{
+				js_item.insert(0, "[" + n.index + "].items");
 			}
 			
-			view.setLayoutParams(new AbsListView.LayoutParams(AbsListView.LayoutParams.MATCH_PARENT, AbsListView.LayoutParams.WRAP_CONTENT));
-			
-			return view;
+			webView.sendJavascript("var item = window.plugins.actionbar.menu" + js_item + "; if(item.click) item.click();");
+			return;
+		}
+		
+		int depth = 0;
+		for(MenuNode n = node; n != null; n = n.parent)
+		{
+			++depth;
+		}
+		
+		int[] indices = new int[depth];
+		for(MenuNode n = node; n != null; n = n.parent)
+		{
+			indices[--depth] = n.index;
 		}
+		
+		JSONArray path = new JSONArray();
+		for(int index: indices)
+		{
+			path.put(index);
+		}
+		
+		sendEvent("type", "menu", "path", path);
 	}
 	
-	NavigationAdapter navigation_adapter = new NavigationAdapter(this);
+	void sendTabEvent(String event, int index)
+	{
+		if(event_channel == null)
+		{
+			webView.sendJavascript("var item = window.plugins.actionbar.tabs[" + index + "]; if(item." + event + ") item." + event + "(item);");
+			return;
+		}
+		
+		sendEvent("type", "tab", "event", event, "index", index);
+	}
+	
+	void sendNavigationEvent(int index)
+	{
+		if(event_channel == null)
+		{
+			webView.sendJavascript("var item = window.plugins.actionbar.navigation_items[" + index + "]; if(item.click) item.click();");
+			return;
+		}
+		
+		sendEvent("type", "navigation", "index", index);
+	}
+	
+	void sendHomeEvent()
+	{
+		if(event_channel == null)
+		{
+			webView.sendJavascript("if(window.plugins.actionbar.home_callback) window.plugins.actionbar.home_callback();");
+			return;
+		}
+		
+		sendEvent("type", "home");
+	}
+	
+	/**! Tab changes can be delivered as a single { type: 'tab', event: 'change', from, to } event rather than separate unselect
+	 * and select events (see setTabChangeEvents), halving the traffic for every switch. Reselecting still sends a reselect event.
+	 * 
+	 * Android reports a switch as an unselect immediately followed by a select, so the unselect is held back until the select
+	 * arrives. If no select follows (e.g. the selected tab was removed), it's flushed as a change to -1 once the current UI
+	 * message has been handled.
+	 */
+	boolean coalesce_tab_events = false;
+	int unselected_tab = -1;
+	int tab_change_serial = 0;
+	final Handler ui_handler = new Handler(Looper.getMainLooper());
+	
+	void onTabSelected(int index)
+	{
+		if(!coalesce_tab_events)
+		{
+			sendTabEvent("select", index);
+			return;
+		}
+		
+		final int from = unselected_tab;
+		unselected_tab = -1;
+		++tab_change_serial;
+		sendTabChangeEvent(from, index);
+	}
+	
+	void onTabUnselected(int index)
+	{
+		if(!coalesce_tab_events)
+		{
+			sendTabEvent("unselect", index);
+			return;
+		}
+		
+		unselected_tab = index;
+		final int serial = ++tab_change_serial;
+		ui_handler.post(new Runnable()
+		{
+			public void run()
+			{
+				// Nothing has been selected in the meantime
+				if(serial == tab_change_serial && unselected_tab != -1)
+				{
+					final int from = unselected_tab;
+					unselected_tab = -1;
+					sendTabChangeEvent(from, -1);
+				}
+			}
+		});
+	}
+	
+	void onTabReselected(int index)
+	{
+		if(coalesce_tab_events && event_channel == null)
+		{
+			// Goes to the same callback as changes, as actionbar.js does with events from the channel
+			sendTabChangeScript("{ type: 'reselect', index: " + index + " }");
+			return;
+		}
+		
+		sendTabEvent("reselect", index);
+	}
+	
+	private void sendTabChangeEvent(int from, int to)
+	{
+		if(event_channel == null)
+		{
+			sendTabChangeScript("{ type: 'change', from: " + from + ", to: " + to + " }");
+			return;
+		}
+		
+		sendEvent("type", "tab", "event", "change", "from", from, "to", to);
+	}
+	
+	private void sendTabChangeScript(String js_event)
+	{
+		webView.sendJavascript("if(window.plugins.actionbar.tab_change_callback) window.plugins.actionbar.tab_change_callback(" + js_event + ");");
+	}
 	
 	ActionBar.OnNavigationListener navigation_listener = new ActionBar.OnNavigationListener()
 	{
 		@Override
 		public boolean onNavigationItemSelected(int itemPosition, long itemId)
 		{
-			webView.sendJavascript("var item = window.plugins.actionbar.navigation_items[" + itemPosition + "]; if(item.click) item.click();");
+			sendNavigationEvent(itemPosition);
 			return true;
 		}
 	};
@@ -248,11 +717,12 @@ public class ActionBarPlugin extends CordovaPlugin
 		{
 			menu = (Menu)data;
 
-			if(menu_definition != null && menu.size() != menu_definition.length())
+			if(menu_definition != null && (built_generation != menu_generation || menu != built_menu || menu.size() != menu_nodes.size()))
 			{
-				menu.clear();
-				menu_callbacks.clear();
-				buildMenu(menu, menu_definition);
+				if(buildMenu(menu, menu_definition))
+				{
+					built_generation = menu_generation;
+				}
 			}
 		}
 		else if("onOptionsItemSelected".equals(id))
@@ -260,12 +730,15 @@ public class ActionBarPlugin extends CordovaPlugin
 			MenuItem item = (MenuItem)data;
 			if(item.getItemId() == android.R.id.home)
 			{
-				webView.sendJavascript("if(window.plugins.actionbar.home_callback) window.plugins.actionbar.home_callback();");
+				sendHomeEvent();
 			}
-			else if(menu_callbacks.containsKey(item))
+			else
 			{
-				final String callback = menu_callbacks.get(item);
-				webView.sendJavascript(callback);
+				MenuNode node = menu_callbacks.get(item.getItemId());
+				if(node != null)
+				{
+					sendMenuEvent(node);
+				}
 			}
 		}
 		
@@ -282,105 +755,449 @@ public class ActionBarPlugin extends CordovaPlugin
 		return path;
 	}
 
-	private Drawable getDrawableForURI(String uri_string)
+	// Blocks on file/network I/O and decoding, so must only be called from the icon loader's worker threads
+	private Drawable getDrawableForURI(String uri_string, int size)
+	{
+		return getDrawableForURI(uri_string, size, false);
+	}
+	
+	/** @param cached_only Only use what's already known and decoded (where the path resolves to, cached bitmaps and manifests),
+	 * never touching the disk or network, so it can be called on the UI thread.
+	 * @return The icon, or null if it doesn't exist (or, for cached_only, isn't ready).
+	 */
+	private Drawable getDrawableForURI(String uri_string, int size, boolean cached_only)
 	{
-		Uri uri = Uri.parse(uri_string);
 		Activity ctx = (Activity)cordova;
 
-		// Special case - TrueType fonts
-		if(uri_string.endsWith(".ttf"))
+		// Icon font glyph
+		if(GlyphRenderer.isGlyph(uri_string))
 		{
-			/*for(String base: bases)
+			final GlyphRenderer.Glyph glyph = GlyphRenderer.parse(uri_string);
+			if(glyph == null)
 			{
-				String path = base + uri;
-				
-				// TODO: Font load / glyph rendering ("/blah/fontawesome.ttf:\f1234")
-			}*/
+				return null;
+			}
+			
+			final String location = resolve(glyph.font, cached_only);
+			final Bitmap bitmap = location == null? null : getGlyphBitmap(glyph, location, size, cached_only);
+			if(bitmap != null)
+			{
+				return new BitmapDrawable(ctx.getResources(), bitmap);
+			}
+		}
+		// Region of a sprite sheet
+		else if(IconAtlas.isRegion(uri_string))
+		{
+			final int hash = uri_string.indexOf('#');
+			final String fragment = uri_string.substring(hash + 1);
+			
+			final String location = resolve(uri_string.substring(0, hash), cached_only);
+			if(location != null)
+			{
+				return getRegionDrawable(location, fragment, size, cached_only);
+			}
 		}
 		// General bitmap
 		else
 		{
-			if(uri.isAbsolute())
+			final String location = resolve(uri_string, cached_only);
+			final Bitmap bitmap = location == null? null : getBitmapForLocation(location, size, cached_only);
+			if(bitmap != null)
 			{
-				if(uri.getScheme().startsWith("http"))
-				{
-					try
-					{
-						URL url = new URL(uri_string);
-						InputStream stream = url.openConnection().getInputStream();
-						return new BitmapDrawable(ctx.getResources(), stream);
-					}
-					catch (MalformedURLException e)
-					{
-						return null;
-					}
-					catch (IOException e)
-					{
-						return null;
-					}
-					catch (Exception e)
-					{
-						return null;
-					}
-				}
-				else
+				return new BitmapDrawable(ctx.getResources(), bitmap);
+			}
+		}
+
+		return null;
+	}
+	
+	/** @return The fully resolved location of an icon path: the path itself if it's absolute, otherwise the path relative to the
+	 * first base it exists under (see Resolution), or null if it doesn't exist under any (or, for known_only, isn't known yet).
+	 */
+	private String resolve(String path, boolean known_only)
+	{
+		if(Uri.parse(path).isAbsolute())
+		{
+			return path;
+		}
+		
+		final Resolution resolution = this.resolution;
+		final String known = resolution.get(path);
+		if(known != null)
+		{
+			return known.equals(Resolution.MISSING)? null : known;
+		}
+		else if(known_only)
+		{
+			return null;
+		}
+		
+		boolean unreachable = false;
+		for(String base: resolution.bases)
+		{
+			String location = base + path;
+			if(location.startsWith("file:///android_asset/"))
+			{
+				// The asset index answers for the normalised path, and AssetManager can't follow "../" anyway
+				location = "file:///android_asset/" + AssetIndex.normalise(location.substring(22));
+			}
+			
+			try
+			{
+				if(exists(location))
 				{
-					try
-					{
-						InputStream stream = ctx.getContentResolver().openInputStream(uri);
-						return new BitmapDrawable(ctx.getResources(), stream);
-					}
-					catch(FileNotFoundException e)
-					{
-						return null;
-					}
+					resolution.put(path, location);
+					return location;
 				}
 			}
-			else
+			catch (IOException e)
+			{
+				// Couldn't tell (e.g. offline), try again next time
+				unreachable = true;
+			}
+		}
+		
+		if(!unreachable)
+		{
+			resolution.put(path, Resolution.MISSING);
+		}
+		
+		return null;
+	}
+	
+	/** @return true if there's something at a fully resolved location, false if there definitely isn't.
+	 * @throws IOException if it couldn't be determined.
+	 */
+	private boolean exists(String location) throws IOException
+	{
+		if(location.startsWith("file:///android_asset/") && asset_index != null)
+		{
+			Boolean indexed = asset_index.contains(location.substring(22));
+			if(indexed != null)
+			{
+				return indexed;
+			}
+		}
+		
+		InputStream stream = null;
+		
+		try
+		{
+			stream = openIconStream(location);
+			return stream != null;
+		}
+		catch (FileNotFoundException e)
+		{
+			return false;
+		}
+		catch (SecurityException e)
+		{
+			return false;
+		}
+		finally
+		{
+			closeQuietly(stream);
+		}
+	}
+	
+	/** @return A drawable for a region (see IconAtlas) of the sheet or manifest at a fully resolved location, or null if it doesn't exist. */
+	private Drawable getRegionDrawable(String location, String fragment, int size, boolean cached_only)
+	{
+		String sheet_location = location;
+		Rect region;
+		
+		if(IconAtlas.isManifest(location))
+		{
+			IconAtlas atlas = getAtlas(location, cached_only);
+			if(atlas == null)
+			{
+				return null;
+			}
+			
+			sheet_location = atlas.image;
+			region = atlas.regions.get(fragment);
+		}
+		else
+		{
+			region = IconAtlas.parseRect(fragment);
+		}
+		
+		if(region == null)
+		{
+			return null;
+		}
+		
+		Bitmap sheet = getSheetBitmap(sheet_location, cached_only);
+		if(sheet == null || region.right > sheet.getWidth() || region.bottom > sheet.getHeight())
+		{
+			return null;
+		}
+		
+		return new IconAtlas.RegionDrawable(sheet, region, size);
+	}
+	
+	/** @return The (cached) atlas manifest at a fully resolved location, or null if it doesn't exist or is invalid. */
+	private IconAtlas getAtlas(String location, boolean cached_only)
+	{
+		synchronized(atlases)
+		{
+			IconAtlas atlas = atlases.get(location);
+			if(atlas != null || cached_only)
+			{
+				return atlas;
+			}
+		}
+		
+		InputStream stream = null;
+		IconAtlas atlas;
+		
+		try
+		{
+			stream = openIconStream(location);
+			atlas = IconAtlas.read(stream, location);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+		catch (JSONException e)
+		{
+			return null;
+		}
+		finally
+		{
+			closeQuietly(stream);
+		}
+		
+		synchronized(atlases)
+		{
+			atlases.put(location, atlas);
+		}
+		
+		return atlas;
+	}
+	
+	/** @return The (cached) full size sheet bitmap at a fully resolved location, or null if it doesn't exist or couldn't be decoded. */
+	private Bitmap getSheetBitmap(String location, boolean cached_only)
+	{
+		// Size 0 stands for "as is"
+		final String key = IconCache.key(location, 0);
+		Bitmap bitmap = icon_cache.get(key);
+		if(bitmap != null || cached_only)
+		{
+			return bitmap;
+		}
+		
+		InputStream stream = null;
+		
+		try
+		{
+			BitmapFactory.Options options = new BitmapFactory.Options();
+			options.inScaled = false;
+			
+			stream = openIconStream(location);
+			bitmap = BitmapFactory.decodeStream(stream, null, options);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+		finally
+		{
+			closeQuietly(stream);
+		}
+		
+		if(bitmap != null)
+		{
+			// Region coordinates are in sheet pixels, drawn at device pixels
+			bitmap.setDensity(display_density);
+			icon_cache.put(key, bitmap);
+		}
+		
+		return bitmap;
+	}
+	
+	/** @return The (cached) glyph bitmap from a fully resolved font location, or null if the font doesn't exist or lacks the glyph. */
+	private Bitmap getGlyphBitmap(GlyphRenderer.Glyph glyph, String location, int size, boolean cached_only)
+	{
+		if(glyph.size > 0)
+		{
+			size = Math.round(glyph.size * display_density / (float)DisplayMetrics.DENSITY_DEFAULT);
+		}
+		
+		final int color = glyph.has_color? glyph.color : glyph_color;
+		final String key = glyph.key(location, size, color);
+		Bitmap bitmap = icon_cache.get(key);
+		if(bitmap != null || cached_only)
+		{
+			return bitmap;
+		}
+		
+		Typeface typeface = glyph_renderer.getTypeface(location);
+		if(typeface == null)
+		{
+			return null;
+		}
+		
+		bitmap = glyph_renderer.render(typeface, glyph.codepoint, size, color, display_density);
+		icon_cache.put(key, bitmap);
+		return bitmap;
+	}
+	
+	/** @return The (cached) bitmap at a fully resolved icon location, or null if it doesn't exist or couldn't be decoded. */
+	private Bitmap getBitmapForLocation(String location, int size, boolean cached_only)
+	{
+		final String key = IconCache.key(location, size);
+		Bitmap bitmap = icon_cache.get(key);
+		if(bitmap != null || cached_only)
+		{
+			return bitmap;
+		}
+
+		try
+		{
+			bitmap = decodeBitmap(location, size);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+
+		icon_cache.put(key, bitmap);
+		return bitmap;
+	}
+	
+	/** Decode the bitmap at an icon location so that its smaller side is (no larger than) size pixels.
+	 * 
+	 * The dimensions are probed first so the bulk of the reduction happens while decoding (power of two subsampling), with the
+	 * decoder scaling the remainder; small sources are never scaled up. SVG icons are rasterized to fit within size pixels instead.
+	 */
+	private Bitmap decodeBitmap(String location, int size) throws IOException
+	{
+		// Vector, rendered straight at the size it's needed at
+		if(SvgRasterizer.isSvg(location))
+		{
+			InputStream stream = openIconStream(location);
+			try
+			{
+				return SvgRasterizer.rasterize(stream, size, display_density, glyph_color);
+			}
+			finally
+			{
+				closeQuietly(stream);
+			}
+		}
+		
+		BitmapFactory.Options options = new BitmapFactory.Options();
+		
+		// Probe dimensions
+		options.inJustDecodeBounds = true;
+		InputStream stream = openIconStream(location);
+		try
+		{
+			BitmapFactory.decodeStream(stream, null, options);
+		}
+		finally
+		{
+			closeQuietly(stream);
+		}
+		
+		if(options.outWidth <= 0 || options.outHeight <= 0)
+		{
+			return null;
+		}
+		
+		options.inSampleSize = 1;
+		while(options.outWidth / (options.inSampleSize * 2) >= size && options.outHeight / (options.inSampleSize * 2) >= size)
+		{
+			options.inSampleSize *= 2;
+		}
+		
+		final int sampled = Math.min(options.outWidth, options.outHeight) / options.inSampleSize;
+		if(sampled > size)
+		{
+			options.inScaled = true;
+			options.inDensity = sampled;
+			options.inTargetDensity = size;
+		}
+		
+		options.inJustDecodeBounds = false;
+		stream = openIconStream(location);
+		try
+		{
+			Bitmap bitmap = BitmapFactory.decodeStream(stream, null, options);
+			if(bitmap != null)
+			{
+				// Decoded at device pixels, don't let BitmapDrawable rescale it
+				bitmap.setDensity(display_density);
+			}
+			
+			return bitmap;
+		}
+		finally
+		{
+			closeQuietly(stream);
+		}
+	}
+	
+	private InputStream openIconStream(String location) throws IOException
+	{
+		Activity ctx = (Activity)cordova;
+
+		// Asset
+		if(location.startsWith("file:///android_asset/"))
+		{
+			return ctx.getAssets().open(location.substring(22));
+		}
+		// Remote
+		else if(location.startsWith("http:") || location.startsWith("https:"))
+		{
+			try
 			{
-				for(String base: bases)
+				if(http_cache != null)
 				{
-					String path = base + uri;
-					
-					// Asset
-					if(base.startsWith("file:///android_asset/"))
-					{
-						path = path.substring(22);
-						
-						try
-						{
-							InputStream stream = ctx.getAssets().open(path);
-							return new BitmapDrawable(ctx.getResources(), stream);
-						}
-						catch (IOException e)
-						{
-							continue;
-						}
-					}
-					// General URI
-					else
-					{
-						try
-						{
-							InputStream stream = ctx.getContentResolver().openInputStream(Uri.parse(path));
-							return new BitmapDrawable(ctx.getResources(), stream);
-						}
-						catch(FileNotFoundException e)
-						{
-							continue;
-						}
-					}
+					return http_cache.open(location);
 				}
+				
+				URL url = new URL(location);
+				return url.openConnection().getInputStream();
+			}
+			catch (MalformedURLException e)
+			{
+				throw new FileNotFoundException(location);
+			}
+		}
+		// General URI
+		else
+		{
+			return ctx.getContentResolver().openInputStream(Uri.parse(location));
+		}
+	}
+	
+	private static void closeQuietly(InputStream stream)
+	{
+		if(stream != null)
+		{
+			try
+			{
+				stream.close();
+			}
+			catch (IOException e)
+			{
+				// Ignore
 			}
 		}
-
-		return null;
 	}
 	
 	/**! Build a menu from a JSON definition.
 	 *
 	 * Example definition:
 	 * [{
+	 * 	 id: 'new',
 	 * 	 icon: 'icons/new.png',
 	 *	 text: 'New',
 	 *	 click: function() { alert('Create something new!'); }
@@ -410,219 +1227,1247 @@ public class ActionBarPlugin extends CordovaPlugin
 	 * 
 	 * Note: By default all menu items have the show flag SHOW_AS_ACTION_IF_ROOM
 	 * 
+	 * If the menu was previously built by this plugin, it's reconciled rather than rebuilt: items are matched by their optional
+	 * (stable) id, or by position, and only the items that changed are touched.
+	 * 
 	 * @param menu The menu to build the definition into
 	 * @param definition The menu definition (see example above)
 	 * @return true if the definition was valid, false otherwise.
 	 */
-	private boolean buildMenu(Menu menu, JSONArray definition)
+	private boolean buildMenu(Menu menu, Definition definition)
 	{
-		return buildMenu(menu, definition, "window.plugins.actionbar.menu");
+		// Start from scratch if the menu isn't the one we last built (or was cleared behind our back)
+		if(menu != built_menu || menu.size() != menu_nodes.size())
+		{
+			for(MenuNode node: menu_nodes)
+			{
+				forgetMenuNode(node);
+			}
+
+			menu.clear();
+			menu_nodes.clear();
+			menu_callbacks.clear();
+			built_menu = menu;
+		}
+
+		try
+		{
+			reconcileMenu(menu, menu_nodes, definition, 0, definition.top_count, null);
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Partially applied, make sure the next build starts over
+			built_menu = null;
+			return false;
+		}
+		finally
+		{
+			restored_icons = null;
+		}
+
+		return true;
 	}
 
-	private boolean buildMenu(Menu menu, JSONArray definition, String menu_var)
+	/** Bring an already built menu level in line with a definition, only adding, removing or updating the items that changed.
+	 * 
+	 * Definition items are matched to built items by their optional "id" field, or by position otherwise. A built item is kept
+	 * (and updated in place) if it's still the same kind (item vs. sub-menu) and still in the same relative order, everything else
+	 * is removed and re-added. Menu item ordering is spread out (see ORDER_STEP) so new items can be inserted between kept ones.
+	 */
+	private void reconcileMenu(Menu menu, ArrayList<MenuNode> nodes, Definition definition, int first, int count, MenuNode parent)
+	{
+		if(count >= ORDER_LIMIT)
+		{
+			throw new IllegalArgumentException("Too many menu items");
+		}
+
+		MenuNode[] placed = new MenuNode[count];
+
+		HashMap<String, MenuNode> old_nodes = new HashMap<String, MenuNode>(nodes.size() * 2);
+		for(MenuNode node: nodes)
+		{
+			// Items sharing an id can't be matched, only the last one is kept
+			MenuNode displaced = old_nodes.put(node.key, node);
+			if(displaced != null)
+			{
+				removeMenuNode(menu, displaced);
+			}
+		}
+
+		// Keep matching items that are still the same kind and still in ascending order
+		int last_order = -1;
+		for(int i = 0; i < count; ++i)
+		{
+			MenuNode node = old_nodes.remove(definition.keys[first + i]);
+			if(node == null)
+			{
+				continue;
+			}
+
+			if(node.is_submenu == definition.isSubMenu(first + i) && node.order > last_order)
+			{
+				placed[i] = node;
+				last_order = node.order;
+			}
+			else
+			{
+				removeMenuNode(menu, node);
+			}
+		}
+
+		for(MenuNode node: old_nodes.values())
+		{
+			removeMenuNode(menu, node);
+		}
+
+		// Update kept items, add new ones in the gaps between them
+		int previous = -1;
+		for(int i = 0; i < count;)
+		{
+			if(placed[i] != null)
+			{
+				updateMenuNode(placed[i], definition, first + i, i, parent);
+				previous = placed[i].order;
+				++i;
+				continue;
+			}
+
+			// Find the run of new items [i, end) and the order of the kept item following it, making room if the gap is too small
+			int end = i;
+			int next;
+			while(true)
+			{
+				while(end < count && placed[end] == null) ++end;
+				next = end < count? placed[end].order : ORDER_LIMIT;
+
+				if(next - previous - 1 >= end - i)
+				{
+					break;
+				}
+				else if(end < count)
+				{
+					removeMenuNode(menu, placed[end]);
+					placed[end] = null;
+				}
+				else
+				{
+					// Ran out of orders at the end of the menu, rebuild this level
+					for(MenuNode node: placed)
+					{
+						if(node != null) removeMenuNode(menu, node);
+					}
+
+					placed = new MenuNode[count];
+					previous = -1;
+					i = end = 0;
+				}
+			}
+
+			final int step = Math.min(ORDER_STEP, (next - previous) / (end - i + 1));
+			for(; i < end; ++i)
+			{
+				previous += step;
+				placed[i] = addMenuNode(menu, definition, first + i, i, previous, parent);
+			}
+		}
+
+		nodes.clear();
+		nodes.addAll(Arrays.asList(placed));
+	}
+
+	// Shown for items that don't set show
+	static final int DEFAULT_SHOW = MenuItem.SHOW_AS_ACTION_IF_ROOM | MenuItem.SHOW_AS_ACTION_WITH_TEXT;
+
+	// item is the item's index in the definition, index its position within its level
+	private MenuNode addMenuNode(Menu menu, Definition definition, int item, int index, int order, MenuNode parent)
+	{
+		final MenuNode node = new MenuNode();
+		final String text = definition.texts[item] == null? "" : definition.texts[item];
+
+		node.key = definition.keys[item];
+		node.item_id = next_item_id++;
+		node.order = order;
+		node.index = index;
+		node.parent = parent;
+		node.text = text;
+		node.icon = definition.icons[item];
+		node.is_submenu = definition.isSubMenu(item);
+
+		if(!node.is_submenu)
+		{
+			final MenuItem menu_item = menu.add(0, node.item_id, order, text);
+			node.item = menu_item;
+			menu_item.setTitleCondensed(text);
+			if(node.icon != null)
+			{
+				loadMenuIcon(node);
+			}
+
+			// Default to MenuItem.SHOW_AS_ACTION_IF_ROOM, otherwise take user defined value.
+			node.show = definition.shows[item] == Definition.DEFAULT_SHOW? DEFAULT_SHOW : definition.shows[item];
+			menu_item.setShowAsAction(node.show);
+
+			// Ids only ever increase, so this is an append rather than an insert
+			menu_callbacks.append(node.item_id, node);
+		}
+		else
+		{
+			final SubMenu submenu = menu.addSubMenu(0, node.item_id, order, text);
+			node.submenu = submenu;
+			node.item = submenu.getItem();
+			if(node.icon != null)
+			{
+				loadMenuIcon(node);
+			}
+
+			// Set submenu header
+			applyMenuHeader(node, definition.header_titles[item], definition.header_icons[item]);
+
+			// Build sub-menu
+			node.children = new ArrayList<MenuNode>();
+			reconcileMenu(submenu, node.children, definition, definition.first_child[item], definition.child_count[item], node);
+		}
+
+		return node;
+	}
+
+	private void updateMenuNode(MenuNode node, Definition definition, int item, int index, MenuNode parent)
+	{
+		final String text = definition.texts[item] == null? "" : definition.texts[item];
+		final String icon = definition.icons[item];
+
+		if(!text.equals(node.text))
+		{
+			node.text = text;
+			node.item.setTitle(text);
+			if(!node.is_submenu)
+			{
+				node.item.setTitleCondensed(text);
+			}
+		}
+
+		if(icon == null? node.icon != null : !icon.equals(node.icon))
+		{
+			icon_loader.cancel(node);
+			node.icon = icon;
+			if(icon == null)
+			{
+				if(node.is_submenu) node.submenu.setIcon((Drawable)null);
+				else node.item.setIcon((Drawable)null);
+			}
+			else
+			{
+				loadMenuIcon(node);
+			}
+		}
+
+		if(!node.is_submenu)
+		{
+			final int show = definition.shows[item] == Definition.DEFAULT_SHOW? DEFAULT_SHOW : definition.shows[item];
+			if(show != node.show)
+			{
+				node.show = show;
+				node.item.setShowAsAction(show);
+			}
+		}
+		else
+		{
+			applyMenuHeader(node, definition.header_titles[item], definition.header_icons[item]);
+			reconcileMenu(node.submenu, node.children, definition, definition.first_child[item], definition.child_count[item], node);
+		}
+
+		node.index = index;
+		node.parent = parent;
+	}
+
+	private void applyMenuHeader(final MenuNode node, String title, String icon)
+	{
+		final boolean title_changed = title == null? node.header_title != null : !title.equals(node.header_title);
+		final boolean icon_changed = icon == null? node.header_icon != null : !icon.equals(node.header_icon);
+		if(!title_changed && !icon_changed)
+		{
+			return;
+		}
+
+		// Headers can only be cleared as a whole, so re-apply both parts
+		icon_loader.cancel(node.header_group);
+		node.submenu.clearHeader();
+		node.header_title = title;
+		node.header_icon = icon;
+
+		if(title != null)
+		{
+			node.submenu.setHeaderTitle(title);
+		}
+
+		if(icon != null)
+		{
+			icon_loader.load(icon, icon_size, node.header_group, new IconLoader.Target()
+			{
+				public void onIconLoaded(Drawable icon)
+				{
+					node.submenu.setHeaderIcon(icon);
+				}
+			});
+		}
+	}
+
+	// Sadly MenuItem.setIcon and SubMenu.setIcon have conflicting return types (for chaining), hence the branch
+	private void loadMenuIcon(final MenuNode node)
+	{
+		// Each item gets its own drawable (as from the icon loader), several may use the same icon
+		final Drawable restored = restored_icons == null? null : restored_icons.get(node.icon);
+		if(restored != null && restored.getConstantState() != null)
+		{
+			final Drawable icon = restored.getConstantState().newDrawable();
+			if(node.is_submenu) node.submenu.setIcon(icon);
+			else node.item.setIcon(icon);
+			return;
+		}
+		
+		icon_loader.load(node.icon, icon_size, node, new IconLoader.Target()
+		{
+			public void onIconLoaded(Drawable icon)
+			{
+				if(node.is_submenu) node.submenu.setIcon(icon);
+				else node.item.setIcon(icon);
+			}
+		});
+	}
+
+	private void removeMenuNode(Menu menu, MenuNode node)
+	{
+		menu.removeItem(node.item_id);
+		forgetMenuNode(node);
+	}
+
+	// Drop pending icon loads and callbacks for a removed item (and its children)
+	private void forgetMenuNode(MenuNode node)
+	{
+		icon_loader.cancel(node);
+		icon_loader.cancel(node.header_group);
+		menu_callbacks.remove(node.item_id);
+
+		if(node.children != null)
+		{
+			for(MenuNode child: node.children)
+			{
+				forgetMenuNode(child);
+			}
+		}
+	}
+
+	
+	/**! Build a tab bar from a JSON definition.
+	 * 
+	 * Example definition:
+	 * [{
+	 * 	   icon: 'icons/tab1_icon.png',
+	 *	 text: 'Tab #1',
+	 *	 select: function() { alert('View Tab #1!'); },
+	 *	 reselect: function() { alert('Refresh Tab #1!'); },
+	 *	 unselect: function() { alert('Hide Tab #1!'); }
+	 * },
+	 * {
+	 * 	   icon: 'icons/tab2_icon.png',
+	 *	 text: 'Tab #2',
+	 *	 select: function() { alert('View Tab #2!'); },
+	 *	 reselect: function() { alert('Refresh Tab #2!'); },
+	 *	 unselect: function() { alert('Hide Tab #2!'); }
+	 * }]
+	 * 
+	 * @param bar The action bar to build the definition into
+	 * @param definition The tab bar definition (see example above)
+	 */
+	private void buildTabs(ActionBar bar, Definition definition)
+	{
+		for(int i = 0; i < definition.top_count; ++i)
+		{
+			final String text = definition.texts[i] == null? "" : definition.texts[i];
+			final ActionBar.Tab tab = bar.newTab().setText(text).setTabListener(new TabListener(this, i));
+
+			// Tab is shown without an icon until it has loaded
+			if(definition.icons[i] != null)
+			{
+				loadTabIcon(tab, definition.icons[i]);
+			}
+
+			built_tabs.add(tab);
+			bar.addTab(tab);
+		}
+	}
+
+	private void loadTabIcon(final ActionBar.Tab tab, String uri)
+	{
+		icon_loader.load(uri, icon_size, TAB_ICONS, new IconLoader.Target()
+		{
+			public void onIconLoaded(Drawable icon)
+			{
+				tab.setIcon(icon);
+			}
+		});
+	}
+
+	/**! A plugin action.
+	 * 
+	 * Each action declares up front where it runs and which argument it requires, so execute() is a single map lookup no matter
+	 * how many actions there are.
+	 */
+	static abstract class Action
+	{
+		// Must be run on the UI thread (otherwise it's run directly on the calling thread)
+		static final int UI_THREAD = 1;
+		// Doesn't need the ActionBar to exist
+		static final int WITHOUT_BAR = 2;
+		
+		final int flags;
+		final String required;
+		
+		/** @param required Name of the first argument if it can't be null (used in the error message), or null if it's optional. */
+		Action(int flags, String required)
+		{
+			this.flags = flags;
+			this.required = required;
+		}
+		
+		/** @return null on success, otherwise an error message. */
+		final String invoke(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+		{
+			String error = check(args);
+			return error != null? error : run(args, bar, result);
+		}
+		
+		final String check(JSONArray args)
+		{
+			return required != null && args.isNull(0)? required + " can not be null" : null;
+		}
+		
+		/** @param result Receives the action's value, if any. @return null on success, otherwise an error message. */
+		abstract String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException;
+	}
+	
+	/** An action that completes its callback itself once it's done, rather than as soon as it returns. */
+	static abstract class AsyncAction extends Action
+	{
+		AsyncAction(int flags, String required)
+		{
+			super(flags, required);
+		}
+		
+		// Part of a batch, nobody to report back to
+		final String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+		{
+			return start(args, bar, null);
+		}
+		
+		/** @param callback To be completed when done, or null if nobody's waiting. @return null if started, otherwise an error message. */
+		abstract String start(JSONArray args, ActionBar bar, CallbackContext callback) throws JSONException;
+	}
+	
+	/** An action taking a menu, tab or list definition, which is read (see Definition) on the calling thread rather than the UI thread. */
+	static abstract class DefinitionAction extends Action
+	{
+		DefinitionAction(int flags, String required)
+		{
+			super(flags, required);
+		}
+		
+		// Part of a batch, the definition has already been parsed along with the rest of it
+		final String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+		{
+			final Definition definition;
+			try
+			{
+				definition = args.isNull(0)? null : Definition.fromJSON(args.get(0).toString());
+			}
+			catch (IOException e)
+			{
+				return "Invalid definition: " + e.getMessage();
+			}
+			
+			return apply(definition, args, bar);
+		}
+		
+		/** @param definition null if the (optional) argument was.
+		 * @param args All of the call's arguments, the first (the definition itself) shouldn't be read.
+		 * @return null on success, otherwise an error message.
+		 */
+		abstract String apply(Definition definition, JSONArray args, ActionBar bar) throws JSONException;
+	}
+	
+	private final HashMap<String, Action> actions = new HashMap<String, Action>();
+	
+	public ActionBarPlugin()
+	{
+		registerActions();
+	}
+	
+	private void registerActions()
+	{
+		final int UI_THREAD = Action.UI_THREAD;
+		
+		actions.put("isAvailable", new Action(Action.WITHOUT_BAR, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", ((Activity)cordova).getWindow().hasFeature(Window.FEATURE_ACTION_BAR));
+				return null;
+			}
+		});
+		
+		// Getters, queued on the UI thread like the setters so they see the effect of every call made before them
+		actions.put("isShowing", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", bar.isShowing());
+				return null;
+			}
+		});
+		actions.put("getHeight", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", bar.getHeight());
+				return null;
+			}
+		});
+		actions.put("getDisplayOptions", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", bar.getDisplayOptions());
+				return null;
+			}
+		});
+		actions.put("getNavigationMode", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", bar.getNavigationMode());
+				return null;
+			}
+		});
+		actions.put("getSelectedNavigationItem", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", bar.getSelectedNavigationIndex());
+				return null;
+			}
+		});
+		actions.put("getSubtitle", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", bar.getSubtitle());
+				return null;
+			}
+		});
+		actions.put("getTitle", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				result.put("value", bar.getTitle());
+				return null;
+			}
+		});
+		actions.put("getIconCacheStats", new Action(Action.WITHOUT_BAR, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				JSONObject stats = new JSONObject();
+				stats.put("hits", icon_cache.hitCount());
+				stats.put("misses", icon_cache.missCount());
+				stats.put("size", icon_cache.size());
+				stats.put("maxSize", icon_cache.maxSize());
+				result.put("value", stats);
+				return null;
+			}
+		});
+		actions.put("setIconDiskCacheSize", new Action(Action.WITHOUT_BAR, "size")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				if(http_cache != null)
+				{
+					http_cache.setMaxBytes(args.getLong(0));
+				}
+				
+				return null;
+			}
+		});
+		
+		// Decode icons into the cache ahead of time, reports { loaded, failed: [uris] } once every icon is done
+		actions.put("prefetchIcons", new AsyncAction(UI_THREAD | Action.WITHOUT_BAR, "uris")
+		{
+			String start(JSONArray args, ActionBar bar, final CallbackContext callback) throws JSONException
+			{
+				final JSONArray uris = args.getJSONArray(0);
+				final int priority = args.isNull(1)? IconLoader.PRIORITY_PREFETCH : args.getInt(1);
+				
+				if(uris.length() == 0)
+				{
+					if(callback != null) callback.success(new JSONObject().put("loaded", 0).put("failed", new JSONArray()));
+					return null;
+				}
+				
+				// Own group, so nothing else cancels it
+				final Object group = new Object();
+				final JSONArray failed = new JSONArray();
+				final int[] remaining = { uris.length() };
+				
+				for(int i = 0; i < uris.length(); ++i)
+				{
+					final String uri = uris.getString(i);
+					
+					icon_loader.load(uri, icon_size, group, new IconLoader.ResultTarget()
+					{
+						public void onIconLoaded(Drawable icon)
+						{
+							done();
+						}
+						
+						public void onIconFailed()
+						{
+							failed.put(uri);
+							done();
+						}
+						
+						private void done()
+						{
+							if(--remaining[0] > 0 || callback == null)
+							{
+								return;
+							}
+							
+							try
+							{
+								callback.success(new JSONObject().put("loaded", uris.length() - failed.length()).put("failed", failed));
+							}
+							catch (JSONException e)
+							{
+								callback.error(e.getMessage());
+							}
+						}
+					}, priority);
+				}
+				
+				return null;
+			}
+		});
+		
+		// Setters
+		actions.put("show", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result)
+			{
+				bar.show();
+				return null;
+			}
+		});
+		actions.put("hide", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result)
+			{
+				bar.hide();
+				return null;
+			}
+		});
+		actions.put("setMenu", new DefinitionAction(UI_THREAD, "menu")
+		{
+			String apply(Definition definition, JSONArray args, ActionBar bar)
+			{
+				return showMenu(definition);
+			}
+		});
+		actions.put("setTabs", new DefinitionAction(UI_THREAD, "menu")
+		{
+			String apply(Definition definition, JSONArray args, ActionBar bar)
+			{
+				showTabs(bar, definition);
+				return null;
+			}
+		});
+		
+		// Named menus and tab bars, parsed (and their icons loaded) once
+		actions.put("registerMenu", new DefinitionAction(UI_THREAD | Action.WITHOUT_BAR, "menu")
+		{
+			String apply(Definition definition, JSONArray args, ActionBar bar) throws JSONException
+			{
+				if(args.isNull(1))
+				{
+					return "id can not be null";
+				}
+				
+				final Definition previous = menu_templates.put(args.getString(1), definition);
+				warmIcons(definition);
+				
+				// Replacing the menu that's showing
+				return previous != null && previous == menu_definition? showMenu(definition) : null;
+			}
+		});
+		actions.put("registerTabs", new DefinitionAction(UI_THREAD | Action.WITHOUT_BAR, "tabs")
+		{
+			String apply(Definition definition, JSONArray args, ActionBar bar) throws JSONException
+			{
+				if(args.isNull(1))
+				{
+					return "id can not be null";
+				}
+				
+				final Definition previous = tab_templates.put(args.getString(1), definition);
+				warmIcons(definition);
+				
+				if(previous != null && previous == tabs_definition && bar != null)
+				{
+					showTabs(bar, definition);
+				}
+				
+				return null;
+			}
+		});
+		actions.put("useMenu", new Action(UI_THREAD, "id")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				final Definition definition = menu_templates.get(args.getString(0));
+				return definition == null? "Unknown menu: " + args.getString(0) : showMenu(definition);
+			}
+		});
+		actions.put("useTabs", new Action(UI_THREAD, "id")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				final Definition definition = tab_templates.get(args.getString(0));
+				if(definition == null)
+				{
+					return "Unknown tabs: " + args.getString(0);
+				}
+				
+				// Already showing, keep the selection
+				if(definition != tabs_definition)
+				{
+					showTabs(bar, definition);
+				}
+				
+				return null;
+			}
+		});
+		
+		// Screen history, for single page apps
+		actions.put("pushState", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result)
+			{
+				states.add(saveState(bar));
+				return null;
+			}
+		});
+		actions.put("popState", new Action(UI_THREAD, null)
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result)
+			{
+				if(states.isEmpty())
+				{
+					return "No state to pop";
+				}
+				
+				restoreState(bar, states.remove(states.size() - 1));
+				return null;
+			}
+		});
+		actions.put("setTabChangeEvents", new Action(UI_THREAD, "enabled")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				coalesce_tab_events = args.getBoolean(0);
+				unselected_tab = -1;
+				return null;
+			}
+		});
+		actions.put("setDisplayHomeAsUpEnabled", new Action(UI_THREAD, "showHomeAsUp")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setDisplayHomeAsUpEnabled(args.getBoolean(0));
+				return null;
+			}
+		});
+		actions.put("setDisplayOptions", new Action(UI_THREAD, "options")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setDisplayOptions(args.getInt(0));
+				return null;
+			}
+		});
+		actions.put("setDisplayShowHomeEnabled", new Action(UI_THREAD, "showHome")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setDisplayShowHomeEnabled(args.getBoolean(0));
+				return null;
+			}
+		});
+		actions.put("setDisplayShowTitleEnabled", new Action(UI_THREAD, "showTitle")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setDisplayShowTitleEnabled(args.getBoolean(0));
+				return null;
+			}
+		});
+		actions.put("setDisplayUseLogoEnabled", new Action(UI_THREAD, "useLogo")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setDisplayUseLogoEnabled(args.getBoolean(0));
+				return null;
+			}
+		});
+		actions.put("setHomeButtonEnabled", new Action(UI_THREAD, "enabled")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setHomeButtonEnabled(args.getBoolean(0));
+				return null;
+			}
+		});
+		actions.put("setIcon", new Action(UI_THREAD, "icon")
+		{
+			String run(JSONArray args, final ActionBar bar, JSONObject result) throws JSONException
+			{
+				// Current icon stays until the new one has loaded
+				icon_loader.cancel(HOME_ICON);
+				icon_loader.load(args.getString(0), logo_size, HOME_ICON, new IconLoader.Target()
+				{
+					public void onIconLoaded(Drawable icon)
+					{
+						bar.setIcon(icon);
+					}
+				});
+				
+				return null;
+			}
+		});
+		actions.put("setListNavigation", new DefinitionAction(UI_THREAD, null)
+		{
+			String apply(Definition definition, JSONArray args, ActionBar bar)
+			{
+				navigation_adapter.setItems(definition);
+				bar.setListNavigationCallbacks(navigation_adapter, navigation_listener);
+				return null;
+			}
+		});
+		actions.put("setLogo", new Action(UI_THREAD, "logo")
+		{
+			String run(JSONArray args, final ActionBar bar, JSONObject result) throws JSONException
+			{
+				// Current logo stays until the new one has loaded
+				icon_loader.cancel(LOGO_ICON);
+				icon_loader.load(args.getString(0), logo_size, LOGO_ICON, new IconLoader.Target()
+				{
+					public void onIconLoaded(Drawable icon)
+					{
+						bar.setLogo(icon);
+					}
+				});
+				
+				return null;
+			}
+		});
+		actions.put("setNavigationMode", new Action(UI_THREAD, "mode")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setNavigationMode(args.getInt(0));
+				return null;
+			}
+		});
+		actions.put("setSelectedNavigationItem", new Action(UI_THREAD, "position")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setSelectedNavigationItem(args.getInt(0));
+				return null;
+			}
+		});
+		actions.put("setSubtitle", new Action(UI_THREAD, "subtitle")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setSubtitle(args.getString(0));
+				return null;
+			}
+		});
+		actions.put("setTitle", new Action(UI_THREAD, "title")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				bar.setTitle(args.getString(0));
+				return null;
+			}
+		});
+		
+		// Apply a list of operations in a single pass on the UI thread
+		actions.put("batch", new Action(UI_THREAD, "operations")
+		{
+			String run(JSONArray args, ActionBar bar, JSONObject result) throws JSONException
+			{
+				runBatch(args.getJSONArray(0), bar, result);
+				return null;
+			}
+		});
+	}
+
+	/** Make definition the menu, must be called on the UI thread. @return null on success, otherwise an error message. */
+	private String showMenu(Definition definition)
+	{
+		// Same menu as before, nothing to rebuild
+		if(menu_definition != null && definition.sameAs(menu_definition))
+		{
+			menu_definition = definition;
+			// Not needed, and mustn't be left for some later build
+			restored_icons = null;
+			return null;
+		}
+		
+		menu_definition = definition;
+		++menu_generation;
+		
+		// Update the live menu in place, invalidating it would have Android clear it and we'd rebuild from scratch
+		if(menu != null && menu == built_menu)
+		{
+			if(!buildMenu(menu, menu_definition))
+			{
+				return "Invalid menu definition";
+			}
+			
+			built_generation = menu_generation;
+		}
+		else if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
+		{
+			((Activity)cordova).invalidateOptionsMenu();
+		}
+		
+		return null;
+	}
+	
+	private void showTabs(ActionBar bar, Definition definition)
+	{
+		icon_loader.cancel(TAB_ICONS);
+		bar.removeAllTabs();
+		built_tabs.clear();
+		tabs_definition = definition;
+		buildTabs(bar, definition);
+	}
+	
+	/** Snapshot the action bar's configuration, must be called on the UI thread. */
+	private BarState saveState(ActionBar bar)
+	{
+		BarState state = new BarState();
+		state.title = bar.getTitle();
+		state.subtitle = bar.getSubtitle();
+		state.display_options = bar.getDisplayOptions();
+		state.navigation_mode = bar.getNavigationMode();
+		state.selected = bar.getSelectedNavigationIndex();
+		
+		state.menu = menu_definition;
+		state.menu_icons = new HashMap<String, Drawable>();
+		collectMenuIcons(menu_nodes, state.menu_icons);
+		
+		state.tabs = tabs_definition;
+		state.tab_views = built_tabs.toArray(new ActionBar.Tab[built_tabs.size()]);
+		state.navigation = navigation_adapter.definition;
+		
+		return state;
+	}
+	
+	private static void collectMenuIcons(ArrayList<MenuNode> nodes, HashMap<String, Drawable> icons)
+	{
+		for(MenuNode node: nodes)
+		{
+			final Drawable icon = node.item.getIcon();
+			if(node.icon != null && icon != null)
+			{
+				icons.put(node.icon, icon);
+			}
+			
+			if(node.children != null)
+			{
+				collectMenuIcons(node.children, icons);
+			}
+		}
+	}
+	
+	/** Bring the action bar back to a snapshot, only touching what differs, must be called on the UI thread. */
+	private void restoreState(ActionBar bar, BarState state)
+	{
+		bar.setTitle(state.title);
+		bar.setSubtitle(state.subtitle);
+		bar.setDisplayOptions(state.display_options);
+		
+		if(state.menu != menu_definition)
+		{
+			restored_icons = state.menu_icons;
+			showMenu(state.menu != null? state.menu : Definition.empty());
+		}
+		
+		if(state.navigation != navigation_adapter.definition)
+		{
+			navigation_adapter.setItems(state.navigation);
+			bar.setListNavigationCallbacks(navigation_adapter, navigation_listener);
+		}
+		
+		if(state.tabs != tabs_definition)
+		{
+			icon_loader.cancel(TAB_ICONS);
+			bar.removeAllTabs();
+			built_tabs.clear();
+			tabs_definition = state.tabs;
+			
+			for(int i = 0; i < state.tab_views.length; ++i)
+			{
+				final ActionBar.Tab tab = state.tab_views[i];
+				
+				// Left before its icon arrived
+				if(tab.getIcon() == null && state.tabs.icons[i] != null)
+				{
+					loadTabIcon(tab, state.tabs.icons[i]);
+				}
+				
+				built_tabs.add(tab);
+				bar.addTab(tab);
+			}
+		}
+		
+		bar.setNavigationMode(state.navigation_mode);
+		if(state.selected >= 0 && state.selected < bar.getNavigationItemCount() && state.selected != bar.getSelectedNavigationIndex())
+		{
+			bar.setSelectedNavigationItem(state.selected);
+		}
+	}
+	
+	// Load every icon a definition uses into the cache, behind anything on screen
+	private void warmIcons(Definition definition)
+	{
+		final HashSet<String> uris = new HashSet<String>();
+		for(int i = 0; i < definition.size(); ++i)
+		{
+			if(definition.icons[i] != null) uris.add(definition.icons[i]);
+			if(definition.header_icons[i] != null) uris.add(definition.header_icons[i]);
+		}
+		
+		for(String uri: uris)
+		{
+			icon_loader.load(uri, icon_size, TEMPLATE_ICONS, new IconLoader.Target()
+			{
+				public void onIconLoaded(Drawable icon)
+				{
+				}
+			}, IconLoader.PRIORITY_PREFETCH);
+		}
+	}
+
+	/** Apply a list of operations ({ action: 'setTitle', args: ['Title'] }, ...) in order, must be called on the UI thread.
+	 * 
+	 * Every operation is attempted, a failing one doesn't stop the rest.
+	 * 
+	 * @param batch Receives { results: [one result per operation, holding its value if it has one], errors: [{ index, action, error }] }
+	 */
+	private void runBatch(JSONArray operations, ActionBar bar, JSONObject batch) throws JSONException
 	{
-		// Sadly MenuItem.setIcon and SubMenu.setIcon have conficting return types (for chaining), thus this can't be done w/ generics :(
-		class GetMenuItemIconTask extends AsyncTask<String, Void, Drawable>
+		JSONArray results = new JSONArray();
+		JSONArray errors = new JSONArray();
+		
+		for(int i = 0; i < operations.length(); ++i)
 		{
-			public final MenuItem item;
-			public Exception exception = null;
-			
-			GetMenuItemIconTask(MenuItem item)
-			{
-				this.item = item;
-			}
-
-			@Override
-			protected Drawable doInBackground(String... uris)
-			{
-				return getDrawableForURI(uris[0]);
-			}
+			JSONObject result = new JSONObject();
+			String action = null;
+			String message;
 			
-			@Override
-			protected void onPostExecute(Drawable icon)
+			try
 			{
-				if(icon != null)
+				JSONObject operation = operations.getJSONObject(i);
+				action = operation.getString("action");
+				JSONArray args = operation.isNull("args")? new JSONArray() : operation.getJSONArray("args");
+				
+				Action handler = actions.get(action);
+				if(handler == null || "batch".equals(action))
 				{
-					item.setIcon(icon);
+					message = "Invalid action: " + action;
+				}
+				else
+				{
+					message = handler.invoke(args, bar, result);
 				}
 			}
-		};
-		
-		class GetSubMenuIconTask extends AsyncTask<String, Void, Drawable>
-		{
-			public final SubMenu item;
-			public Exception exception = null;
-			
-			GetSubMenuIconTask(SubMenu item)
+			catch (JSONException e)
 			{
-				this.item = item;
+				message = e.getMessage();
 			}
-
-			@Override
-			protected Drawable doInBackground(String... uris)
+			catch (RuntimeException e)
 			{
-				return getDrawableForURI(uris[0]);
+				message = e.toString();
 			}
 			
-			@Override
-			protected void onPostExecute(Drawable icon)
+			results.put(result);
+			
+			if(message != null)
 			{
-				if(icon != null)
-				{
-					item.setIcon(icon);
-				}
+				JSONObject error = new JSONObject();
+				error.put("index", i);
+				error.put("action", action);
+				error.put("error", message);
+				errors.put(error);
 			}
-		};
+		}
 		
-		try
+		batch.put("results", results);
+		batch.put("errors", errors);
+	}
+
+	// This is a bit of a hack (should be specific to the request, not global)
+	private void updateBases()
+	{
+		final String original = removeFilename(webView.getOriginalUrl());
+		final String current = removeFilename(webView.getUrl());
+		
+		// Usually the same, no need to look everywhere twice
+		final String[] bases = original.equals(current)? new String[] { current } : new String[] { original, current };
+		
+		// Keep what's been resolved so far unless the page actually changed
+		if(!Arrays.equals(bases, resolution.bases))
 		{
-			for(int i = 0; i < definition.length(); ++i)
+			resolution = new Resolution(bases);
+			
+			// (Re)index the asset tree when the page moved into another one
+			for(String base: bases)
 			{
-				final JSONObject item_def = definition.getJSONObject(i);
-				final String text = item_def.isNull("text")? "" : item_def.getString("text");
-
-				if(!item_def.has("items"))
-				{
-					MenuItem item = menu.add(0, i, i, text);
-					item.setTitleCondensed(text);
-					if(item_def.isNull("icon") == false)
-					{
-						GetMenuItemIconTask task = new GetMenuItemIconTask(item);
-						
-						synchronized(task)
-						{
-							task.execute(item_def.getString("icon"));
-						}
-					}
-
-					// Default to MenuItem.SHOW_AS_ACTION_IF_ROOM, otherwise take user defined value.
-					item.setShowAsAction(item_def.has("show")? item_def.getInt("show") : MenuItem.SHOW_AS_ACTION_IF_ROOM | MenuItem.SHOW_AS_ACTION_WITH_TEXT);
-
-					menu_callbacks.put(item, "var item = " + menu_var + "[" + i + "]; if(item.click) item.click();");
-				}
-				else
+				if(base.startsWith("file:///android_asset/"))
 				{
-					SubMenu submenu = menu.addSubMenu(0, i, i, text);
-					if(item_def.isNull("icon") == false)
-					{
-						GetSubMenuIconTask task = new GetSubMenuIconTask(submenu);
-						
-						synchronized(task)
-						{
-							task.execute(item_def.getString("icon"));
-						}
-					}
-					
-					// Set submenu header
-					if(item_def.has("header"))
+					final String root = AssetIndex.rootOf(base.substring(22));
+					if(asset_index == null || !asset_index.root.equals(root))
 					{
-						JSONObject header = item_def.getJSONObject("header");
-
-						if(header.has("title"))
-						{
-							submenu.setHeaderTitle(header.getString("title"));
-						}
-						
-						if(header.has("icon"))
-						{
-							submenu.setHeaderIcon(getDrawableForURI(header.getString("icon")));
-						}
+						asset_index = new AssetIndex(((Activity)cordova).getAssets(), root, cordova.getThreadPool());
 					}
 					
-					// Build sub-menu
-					buildMenu(submenu, item_def.getJSONArray("items"), menu_var + "[" + i + "].items");
+					break;
 				}
 			}
 		}
-		catch (JSONException e)
-		{
-			return false;
-		}
-
-		return true;
-	}
-
-	
-	/**! Build a tab bar from a JSON definition.
-	 * 
-	 * Example definition:
-	 * [{
-	 * 	   icon: 'icons/tab1_icon.png',
-	 *	 text: 'Tab #1',
-	 *	 select: function() { alert('View Tab #1!'); },
-	 *	 reselect: function() { alert('Refresh Tab #1!'); },
-	 *	 unselect: function() { alert('Hide Tab #1!'); }
-	 * },
-	 * {
-	 * 	   icon: 'icons/tab2_icon.png',
-	 *	 text: 'Tab #2',
-	 *	 select: function() { alert('View Tab #2!'); },
-	 *	 reselect: function() { alert('Refresh Tab #2!'); },
-	 *	 unselect: function() { alert('Hide Tab #2!'); }
-	 * }]
-	 * 
-	 * @param bar The action bar to build the definition into
-	 * @param definition The tab bar definition (see example above)
-	 * @return true if the definition was valid, false otherwise.
-	 */
-	private boolean buildTabs(ActionBar bar, JSONArray definition)
-	{
-		return buildTabs(bar, definition, "window.plugins.actionbar.tabs");
 	}
 	
-	private boolean buildTabs(ActionBar bar, JSONArray definition, String menu_var)
+	private static void complete(CallbackContext callbackContext, String error, JSONObject result)
 	{
-		try
+		if(error == null)
 		{
-			for(int i = 0; i < definition.length(); ++i)
+			if(result.length() > 0)
 			{
-				final JSONObject item_def = definition.getJSONObject(i);
-				final String text = item_def.isNull("text")? "" : item_def.getString("text");
-				final Drawable icon = item_def.isNull("icon")? null : getDrawableForURI(item_def.getString("icon"));
-
-				bar.addTab(bar.newTab().setText(text).setIcon(icon).setTabListener(new TabListener(this, menu_var + "[" + i + "]")));
+				callbackContext.success(result);
+			}
+			else
+			{
+				callbackContext.success();
 			}
 		}
-		catch (JSONException e)
+		else
 		{
-			return false;
+			callbackContext.error(error);
 		}
-
-		return true;
 	}
 
-	private final static List<String> plugin_actions = Arrays.asList(new String[] {
-		"isAvailable",
-		"show", "hide", "isShowing", "getHeight",
-		"setMenu", "setTabs",
-		"setDisplayOptions", "getDisplayOptions",
-		"setHomeButtonEnabled", "setIcon", "setListNavigation", "setLogo",
-		"setDisplayShowHomeEnabled", "setDisplayHomeAsUpEnabled", "setDisplayShowTitleEnabled", "setDisplayUseLogoEnabled",
-		"setNavigationMode", "getNavigationMode", "setSelectedNavigationItem", "getSelectedNavigationItem",
-		"setTitle", "getTitle", "setSubtitle", "getSubtitle"
+	// streamed when the handler is a DefinitionAction whose definition was already read from the raw arguments
+	private static void dispatch(Action handler, JSONArray args, boolean streamed, Definition definition, ActionBar bar, CallbackContext callbackContext) throws JSONException
+	{
+		if(streamed)
+		{
+			complete(callbackContext, ((DefinitionAction)handler).apply(definition, args, bar), new JSONObject());
+			return;
+		}
 		
-	});
+		if(handler instanceof AsyncAction)
+		{
+			String error = handler.check(args);
+			if(error == null)
+			{
+				error = ((AsyncAction)handler).start(args, bar, callbackContext);
+			}
+			
+			if(error != null)
+			{
+				callbackContext.error(error);
+			}
+			
+			return;
+		}
+		
+		JSONObject result = new JSONObject();
+		complete(callbackContext, handler.invoke(args, bar, result), result);
+	}
 
 	@Override
 	public boolean execute(final String action, final JSONArray args, final CallbackContext callbackContext) throws JSONException
 	{
-		if(!plugin_actions.contains(action))
+		final Action handler = actions.get(action);
+		if(handler == null)
 		{
+			if("listen".equals(action))
+			{
+				// Kept open for events, see event_channel
+				event_channel = callbackContext;
+				PluginResult result = new PluginResult(PluginResult.Status.NO_RESULT);
+				result.setKeepCallback(true);
+				callbackContext.sendPluginResult(result);
+				return true;
+			}
+			
 			return false;
 		}
 		
-		final Activity ctx = (Activity)cordova;
-
-		if("isAvailable".equals(action))
+		perform(handler, args, false, null, callbackContext);
+		return true;
+	}
+	
+	/** Definitions are streamed straight from the raw arguments, the rest go through the JSONArray version above. */
+	@Override
+	public boolean execute(String action, String rawArgs, CallbackContext callbackContext) throws JSONException
+	{
+		final Action handler = actions.get(action);
+		if(!(handler instanceof DefinitionAction))
 		{
-			JSONObject result = new JSONObject();
-			result.put("value", ctx.getWindow().hasFeature(Window.FEATURE_ACTION_BAR));
-			callbackContext.success(result);
+			return super.execute(action, rawArgs, callbackContext);
+		}
+		
+		final JSONArray args = new JSONArray();
+		final Definition definition;
+		try
+		{
+			definition = Definition.fromArguments(rawArgs, args);
+		}
+		catch (IOException e)
+		{
+			callbackContext.error("Invalid definition: " + e.getMessage());
 			return true;
 		}
-
+		
+		if(definition == null && handler.required != null)
+		{
+			callbackContext.error(handler.required + " can not be null");
+			return true;
+		}
+		
+		perform(handler, args, true, definition, callbackContext);
+		return true;
+	}
+	
+	private void perform(final Action handler, final JSONArray args, final boolean streamed, final Definition definition, final CallbackContext callbackContext) throws JSONException
+	{
+		final Activity ctx = (Activity)cordova;
 		final ActionBar bar = ctx.getActionBar();
-		if(bar == null)
+		
+		if(bar == null && (handler.flags & Action.WITHOUT_BAR) == 0)
 		{
 			Window window = ctx.getWindow();
 			if(!window.hasFeature(Window.FEATURE_ACTION_BAR))
@@ -634,323 +2479,61 @@ public class ActionBarPlugin extends CordovaPlugin
 				callbackContext.error("Failed to get ActionBar");
 			}
 
-			return true;
+			return;
 		}
-
-		if(menu == null)
+		
+		if((handler.flags & Action.UI_THREAD) == 0)
 		{
-			//callbackContext.error("Options menu not initialised");
-			//return true;
+			dispatch(handler, args, streamed, definition, bar, callbackContext);
+			return;
 		}
 
-		final StringBuffer error = new StringBuffer();
-		JSONObject result = new JSONObject();
-
-		if("isShowing".equals(action))
-		{
-			result.put("value", bar.isShowing());
-		}
-		else if("getHeight".equals(action))
-		{
-			result.put("value", bar.getHeight());
-		}
-		else if("getDisplayOptions".equals(action))
-		{
-			result.put("value", bar.getDisplayOptions());
-		}
-		else if("getNavigationMode".equals(action))
-		{
-			result.put("value", bar.getNavigationMode());
-		}
-		else if("getSelectedNavigationItem".equals(action))
-		{
-			result.put("value", bar.getSelectedNavigationIndex());
-		}
-		else if("getSubtitle".equals(action))
-		{
-			result.put("value", bar.getSubtitle());
-		}
-		else if("getTitle".equals(action))
-		{
-			result.put("value", bar.getTitle());
-		}
-		else
+		// Apply on the UI thread and complete the callback from there, nothing waits for it
+		ctx.runOnUiThread(new Runnable()
 		{
-			try
+			public void run()
 			{
-				JSONException exception = new Runnable()
+				try
 				{
-					public JSONException exception = null;
-					
-					public void run()
-					{
-						try
-						{
-							// This is a bit of a hack (should be specific to the request, not global)
-							bases = new String[]
-							{
-								removeFilename(webView.getOriginalUrl()),
-								removeFilename(webView.getUrl())
-							};
-							
-							if("show".equals(action))
-							{
-								bar.show();
-							}
-							else if("hide".equals(action))
-							{
-								bar.hide();
-							}
-							else if("setMenu".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("menu can not be null");
-									return;
-								}
-
-								menu_definition = args.getJSONArray(0);
-								
-								if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
-								{
-									ctx.invalidateOptionsMenu();
-								}
-							}
-							else if("setTabs".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("menu can not be null");
-									return;
-								}
-					
-								bar.removeAllTabs();
-								tab_callbacks.clear();
-					
-								if(!buildTabs(bar, args.getJSONArray(0)))
-								{
-									error.append("Invalid tab bar definition");
-								}
-							}
-							else if("setDisplayHomeAsUpEnabled".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("showHomeAsUp can not be null");
-									return;
-								}
-					
-								bar.setDisplayHomeAsUpEnabled(args.getBoolean(0));
-							}
-							else if("setDisplayOptions".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("options can not be null");
-									return;
-								}
-
-								final int options = args.getInt(0);
-								bar.setDisplayOptions(options);
-							}
-							else if("setDisplayShowHomeEnabled".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("showHome can not be null");
-									return;
-								}
-					
-								bar.setDisplayShowHomeEnabled(args.getBoolean(0));
-							}
-							else if("setDisplayShowTitleEnabled".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("showTitle can not be null");
-									return;
-								}
-					
-								bar.setDisplayShowTitleEnabled(args.getBoolean(0));
-							}
-							else if("setDisplayUseLogoEnabled".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("useLogo can not be null");
-									return;
-								}
-					
-								bar.setDisplayUseLogoEnabled(args.getBoolean(0));
-							}
-							else if("setHomeButtonEnabled".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("enabled can not be null");
-									return;
-								}
-					
-								bar.setHomeButtonEnabled(args.getBoolean(0));
-							}
-							else if("setIcon".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("icon can not be null");
-									return;
-								}
-								
-								Drawable drawable = getDrawableForURI(args.getString(0));
-								bar.setIcon(drawable);
-							}
-							else if("setListNavigation".equals(action))
-							{
-								JSONArray items = null;
-								if(args.isNull(0) == false)
-								{
-									items = args.getJSONArray(0);
-								}
-								
-								navigation_adapter.setItems(items);
-								bar.setListNavigationCallbacks(navigation_adapter, navigation_listener);
-							}
-							else if("setLogo".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("logo can not be null");
-									return;
-								}
-								
-								Drawable drawable = getDrawableForURI(args.getString(0));
-								bar.setLogo(drawable);
-							}
-							else if("setNavigationMode".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("mode can not be null");
-									return;
-								}
-
-								final int mode = args.getInt(0);
-								bar.setNavigationMode(mode);
-							}
-							else if("setSelectedNavigationItem".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("position can not be null");
-									return;
-								}
-					
-								bar.setSelectedNavigationItem(args.getInt(0));
-							}
-							else if("setSubtitle".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("subtitle can not be null");
-									return;
-								}
-					
-								bar.setSubtitle(args.getString(0));
-							}
-							else if("setTitle".equals(action))
-							{
-								if(args.isNull(0))
-								{
-									error.append("title can not be null");
-									return;
-								}
-					
-								bar.setTitle(args.getString(0));
-							}
-						}
-						catch (JSONException e)
-						{
-							exception = e;
-						}
-						finally
-						{
-							synchronized(this)
-							{
-								this.notify();
-							}
-						}
-					}
-					
-					// Run task synchronously
-					{
-						synchronized(this)
-						{
-							ctx.runOnUiThread(this);
-							this.wait();
-						}
-					}
-				}.exception;
-				
-				if(exception != null)
+					updateBases();
+					dispatch(handler, args, streamed, definition, bar, callbackContext);
+				}
+				catch (JSONException e)
 				{
-					throw exception;
+					callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.JSON_EXCEPTION, e.getMessage()));
+				}
+				catch (RuntimeException e)
+				{
+					callbackContext.error(e.toString());
 				}
 			}
-			catch (InterruptedException e)
-			{
-				error.append("Function interrupted on UI thread");
-			}
-		}
-		
-		if(error.length() == 0)
-		{
-			if(result.length() > 0)
-			{
-				callbackContext.success(result);
-			}
-			else
-			{
-				callbackContext.success();
-			}
-		}
-		else
-		{
-			callbackContext.error(error.toString());
-		}
-
-		return true;
+		});
 	}
 
 	public static class TabListener implements ActionBar.TabListener
 	{
 		private ActionBarPlugin plugin;
-		private String js_item;
+		private int index;
 
-		public TabListener(ActionBarPlugin plugin, String js_item)
+		public TabListener(ActionBarPlugin plugin, int index)
 		{
 			this.plugin = plugin;
-			this.js_item = js_item;
+			this.index = index;
 		}
 
 		public void onTabSelected(ActionBar.Tab tab, FragmentTransaction ft)
 		{
-			String callback = "var item = " + js_item + "; if(item.select) item.select(item);";
-			
-			plugin.webView.sendJavascript(callback);
+			plugin.onTabSelected(index);
 		}
 
 		public void onTabUnselected(ActionBar.Tab tab, FragmentTransaction ft)
 		{
-			String callback = "var item = " + js_item + "; if(item.unselect) item.unselect(item);";
-			
-			plugin.webView.sendJavascript(callback);
+			plugin.onTabUnselected(index);
 		}
 
 		public void onTabReselected(ActionBar.Tab tab, FragmentTransaction ft)
 		{
-			String callback = "var item = " + js_item + "; if(item.reselect) item.reselect(item);";
-			
-			plugin.webView.sendJavascript(callback);
+			plugin.onTabReselected(index);
 		}
 	}
 }
@@ -0,0 +1,139 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+
+import android.content.res.AssetManager;
+
+/**! Index of the files in a directory tree of the APK's assets (usually the web root, "www").
+ *
+ * AssetManager can only tell whether a file exists by failing to open it, which is slow when done for every candidate location
+ * of every icon. The index is built once, on a background thread, after which existence checks are set lookups. Until it's
+ * ready (or for paths outside the tree) contains() answers null and callers fall back to probing.
+ */
+class AssetIndex
+{
+	/** Indexed directory, relative to the assets root without a trailing slash ("" for everything). */
+	final String root;
+
+	private final AssetManager assets;
+	private volatile HashSet<String> files = null;
+
+	AssetIndex(AssetManager assets, String root, Executor executor)
+	{
+		this.assets = assets;
+		this.root = root;
+
+		executor.execute(new Runnable()
+		{
+			public void run()
+			{
+				HashSet<String> found = new HashSet<String>();
+
+				try
+				{
+					add(root, assets.list(root), found);
+				}
+				catch (IOException e)
+				{
+					// Leave it unindexed, everything gets probed
+					return;
+				}
+
+				files = found;
+			}
+		});
+	}
+
+	/** @return The indexed directory for an asset path (its first path segment). */
+	static String rootOf(String path)
+	{
+		final int slash = path.indexOf('/');
+		return slash == -1? "" : path.substring(0, slash);
+	}
+
+	/** @param path Relative to the assets root (e.g. "www/img/icon.png").
+	 * @return Whether the file exists, or null if that isn't known (index not ready, or the path is outside it).
+	 */
+	Boolean contains(String path)
+	{
+		final HashSet<String> files = this.files;
+		if(files == null)
+		{
+			return null;
+		}
+
+		// Checked once normalised, so a path can't ".." its way out of the tree
+		path = normalise(path);
+		if(root.length() > 0 && !path.startsWith(root + "/"))
+		{
+			return null;
+		}
+
+		return files.contains(path);
+	}
+
+	/** Collapse "./" and "dir/../" segments, so paths built from page bases match the listed ones (leading ".." segments are kept).
+	 *
+	 * Callers should open the normalised path too, it's what contains() answered for.
+	 */
+	static String normalise(String path)
+	{
+		if(path.indexOf("./") == -1)
+		{
+			return path;
+		}
+
+		final String[] segments = path.split("/");
+		final String[] kept = new String[segments.length];
+		int count = 0;
+
+		for(String segment: segments)
+		{
+			if(segment.equals("..") && count > 0)
+			{
+				--count;
+			}
+			else if(!segment.equals(".") && segment.length() > 0)
+			{
+				kept[count++] = segment;
+			}
+		}
+
+		StringBuilder normalised = new StringBuilder();
+		for(int i = 0; i < count; ++i)
+		{
+			if(i > 0) normalised.append('/');
+			normalised.append(kept[i]);
+		}
+
+		return normalised.toString();
+	}
+
+	// Directories aren't packaged when empty, so anything with no children is a file
+	private void add(String directory, String[] names, HashSet<String> found) throws IOException
+	{
+		final String prefix = directory.length() > 0? directory + "/" : "";
+
+		for(String name: names)
+		{
+			final String path = prefix + name;
+			final String[] children = assets.list(path);
+
+			if(children == null || children.length == 0)
+			{
+				found.add(path);
+			}
+			else
+			{
+				add(path, children, found);
+			}
+		}
+	}
+}
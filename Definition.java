@@ -0,0 +1,353 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+/**! A menu, tab or list navigation definition, parsed once into flat arrays.
+ *
+ * Every item (at any depth) has an index into the arrays below. The top level items are [0, top_count), and the children of
+ * a sub-menu item i are the contiguous range [first_child[i], first_child[i] + child_count[i]); child_count[i] is -1 for an item
+ * that isn't a sub-menu. Tabs and list navigation only use the top level text and icon.
+ *
+ * Definitions are read with a streaming JsonReader straight from the arguments string Cordova hands the plugin, so no
+ * JSONObject tree is ever built for them (nor is the JSON kept), and are never modified once read.
+ */
+final class Definition
+{
+	/** show value for items that don't specify one. */
+	static final int DEFAULT_SHOW = -1;
+
+	// Digest of the items as read (see sameAs), null if no digest is available
+	private final byte[] digest;
+
+	final int top_count;
+
+	// Per item
+	final String[] keys;
+	final String[] texts;
+	final String[] icons;
+	final int[] shows;
+	final String[] header_titles;
+	final String[] header_icons;
+	final int[] first_child;
+	final int[] child_count;
+
+	// Item as read, before being laid out
+	private static class Node
+	{
+		String id = null;
+		String text = null;
+		String icon = null;
+		int show = DEFAULT_SHOW;
+		String header_title = null;
+		String header_icon = null;
+		ArrayList<Node> children = null;
+	}
+
+	private Definition(ArrayList<Node> top, int count)
+	{
+		top_count = top.size();
+
+		keys = new String[count];
+		texts = new String[count];
+		icons = new String[count];
+		shows = new int[count];
+		header_titles = new String[count];
+		header_icons = new String[count];
+		first_child = new int[count];
+		child_count = new int[count];
+
+		// Breadth first, so each level's items end up next to each other
+		ArrayList<Node> queue = new ArrayList<Node>(count);
+		queue.addAll(top);
+		int next = top.size();
+
+		// Position of each item within its own level (items without an id are matched by it)
+		final int[] positions = new int[count];
+		for(int i = 0; i < top_count; ++i)
+		{
+			positions[i] = i;
+		}
+
+		for(int i = 0; i < count; ++i)
+		{
+			final Node node = queue.get(i);
+
+			keys[i] = node.id != null? "id:" + node.id : "#" + positions[i];
+			texts[i] = node.text;
+			icons[i] = node.icon;
+			shows[i] = node.show;
+			header_titles[i] = node.header_title;
+			header_icons[i] = node.header_icon;
+
+			if(node.children == null)
+			{
+				child_count[i] = -1;
+			}
+			else
+			{
+				first_child[i] = next;
+				child_count[i] = node.children.size();
+				queue.addAll(node.children);
+				for(int child = 0; child < node.children.size(); ++child)
+				{
+					positions[next + child] = child;
+				}
+
+				next += node.children.size();
+			}
+
+			// Done with it, keep the queue from holding on to the whole tree
+			queue.set(i, null);
+		}
+
+		digest = digest();
+	}
+
+	/** @return true if other has exactly the same items (however its JSON was written or sent). */
+	boolean sameAs(Definition other)
+	{
+		return digest != null && Arrays.equals(digest, other.digest);
+	}
+
+	private byte[] digest()
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			update(digest, top_count);
+			for(int i = 0; i < size(); ++i)
+			{
+				update(digest, keys[i]);
+				update(digest, texts[i]);
+				update(digest, icons[i]);
+				update(digest, shows[i]);
+				update(digest, header_titles[i]);
+				update(digest, header_icons[i]);
+				update(digest, first_child[i]);
+				update(digest, child_count[i]);
+			}
+
+			return digest.digest();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			return null;
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			return null;
+		}
+	}
+
+	private static void update(MessageDigest digest, int value)
+	{
+		digest.update((byte)(value >>> 24));
+		digest.update((byte)(value >>> 16));
+		digest.update((byte)(value >>> 8));
+		digest.update((byte)value);
+	}
+
+	// Length prefixed (-1 for null), so adjacent strings can't run into each other
+	private static void update(MessageDigest digest, String value) throws UnsupportedEncodingException
+	{
+		if(value == null)
+		{
+			update(digest, -1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes("UTF-8");
+		update(digest, bytes.length);
+		digest.update(bytes);
+	}
+
+	/** @return A definition with no items. */
+	static Definition empty()
+	{
+		return new Definition(new ArrayList<Node>(), 0);
+	}
+
+	/** @return The number of items at every level. */
+	int size()
+	{
+		return texts.length;
+	}
+
+	boolean isSubMenu(int i)
+	{
+		return child_count[i] >= 0;
+	}
+
+	/** Read the first of a plugin call's arguments (a JSON array, e.g. "[[{ text: 'Save' }], 'id']") as a definition.
+	 *
+	 * @param rest Receives the arguments, with null in place of the definition. Only strings, numbers and booleans are kept,
+	 * anything else is null.
+	 * @return The definition, or null if the argument is null.
+	 * @throws IOException if the argument isn't a valid definition.
+	 */
+	static Definition fromArguments(String raw_args, JSONArray rest) throws IOException
+	{
+		JsonReader reader = new JsonReader(new StringReader(raw_args));
+
+		try
+		{
+			Definition definition = null;
+
+			reader.beginArray();
+			if(reader.hasNext())
+			{
+				if(reader.peek() == JsonToken.NULL) reader.nextNull();
+				else definition = read(reader);
+			}
+
+			rest.put(JSONObject.NULL);
+			while(reader.hasNext())
+			{
+				switch(reader.peek())
+				{
+					// Numbers are kept as written, JSONArray converts them when they're read
+					case STRING: case NUMBER: rest.put(reader.nextString()); break;
+					case BOOLEAN: rest.put(reader.nextBoolean()); break;
+					default: reader.skipValue(); rest.put(JSONObject.NULL); break;
+				}
+			}
+			reader.endArray();
+
+			return definition;
+		}
+		catch (IllegalStateException e)
+		{
+			// Unexpected token
+			throw new IOException(e.getMessage());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IOException(e.getMessage());
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	/** Read a definition from its JSON text (e.g. "[{ text: 'Save' }]").
+	 *
+	 * @throws IOException if it isn't a valid definition.
+	 */
+	static Definition fromJSON(String json) throws IOException
+	{
+		JsonReader reader = new JsonReader(new StringReader(json));
+
+		try
+		{
+			return read(reader);
+		}
+		catch (IllegalStateException e)
+		{
+			throw new IOException(e.getMessage());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IOException(e.getMessage());
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	private static Definition read(JsonReader reader) throws IOException
+	{
+		int[] count = { 0 };
+		ArrayList<Node> top = readItems(reader, count);
+		return new Definition(top, count[0]);
+	}
+
+	private static ArrayList<Node> readItems(JsonReader reader, int[] count) throws IOException
+	{
+		ArrayList<Node> items = new ArrayList<Node>();
+
+		reader.beginArray();
+		while(reader.hasNext())
+		{
+			items.add(readItem(reader, count));
+			++count[0];
+		}
+		reader.endArray();
+
+		return items;
+	}
+
+	private static Node readItem(JsonReader reader, int[] count) throws IOException
+	{
+		Node node = new Node();
+
+		reader.beginObject();
+		while(reader.hasNext())
+		{
+			final String name = reader.nextName();
+
+			if(reader.peek() == JsonToken.NULL)
+			{
+				reader.nextNull();
+			}
+			else if("id".equals(name))
+			{
+				node.id = reader.nextString();
+			}
+			else if("text".equals(name))
+			{
+				node.text = reader.nextString();
+			}
+			else if("icon".equals(name))
+			{
+				node.icon = reader.nextString();
+			}
+			else if("show".equals(name))
+			{
+				node.show = reader.nextInt();
+			}
+			else if("header".equals(name))
+			{
+				reader.beginObject();
+				while(reader.hasNext())
+				{
+					final String header_name = reader.nextName();
+					if(reader.peek() == JsonToken.NULL) reader.nextNull();
+					else if("title".equals(header_name)) node.header_title = reader.nextString();
+					else if("icon".equals(header_name)) node.header_icon = reader.nextString();
+					else reader.skipValue();
+				}
+				reader.endObject();
+			}
+			else if("items".equals(name))
+			{
+				node.children = readItems(reader, count);
+			}
+			else
+			{
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+
+		return node;
+	}
+}
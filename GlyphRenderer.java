@@ -0,0 +1,308 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+/**! Renders single glyphs of icon fonts (TrueType/OpenType) to bitmaps.
+ *
+ * Glyph icons are given as a font location followed by the codepoint and optional size (dp) and colour, e.g.
+ * 	fonts/fontawesome.ttf?U+F013
+ * 	fonts/fontawesome.ttf?U+F013&size=24&color=FF33B5E5
+ * The colour is RRGGBB or AARRGGBB hex and defaults to the action bar's menu text colour.
+ *
+ * Each font is loaded once and kept for the life of the plugin, or until forgotten (a font that failed to load is remembered as
+ * such), the rendered glyph bitmaps are cached by the plugin alongside decoded icons (see Glyph.key()).
+ */
+class GlyphRenderer
+{
+	interface Opener
+	{
+		/** Open a stream to a fully resolved location (used for fonts outside the assets, which Typeface can only load from a file). */
+		InputStream open(String location) throws IOException;
+	}
+
+	/** A parsed glyph icon URI. */
+	static class Glyph
+	{
+		final String font;
+		final int codepoint;
+		// dp, or 0 to use the size of the slot being filled
+		final int size;
+		final int color;
+		final boolean has_color;
+
+		Glyph(String font, int codepoint, int size, int color, boolean has_color)
+		{
+			this.font = font;
+			this.codepoint = codepoint;
+			this.size = size;
+			this.color = color;
+			this.has_color = has_color;
+		}
+
+		/** @return The cache key for this glyph from a resolved font location, rendered at size pixels in color. */
+		String key(String location, int size, int color)
+		{
+			return IconCache.key(location + "?U+" + Integer.toHexString(codepoint) + "&color=" + Integer.toHexString(color), size);
+		}
+	}
+
+	private final AssetManager assets;
+	private final File cache_dir;
+	private final Opener opener;
+
+	// Loaded fonts by resolved location, null for fonts that couldn't be loaded
+	private final HashMap<String, Typeface> typefaces = new HashMap<String, Typeface>();
+	// Locks for the fonts being loaded, so each font is only loaded (and copied) by one thread at a time
+	private final HashMap<String, Object> loading = new HashMap<String, Object>();
+
+	GlyphRenderer(AssetManager assets, File cache_dir, Opener opener)
+	{
+		this.assets = assets;
+		this.cache_dir = cache_dir;
+		this.opener = opener;
+	}
+
+	/** @return true if uri refers to a glyph in a font file (rather than an image). */
+	static boolean isGlyph(String uri)
+	{
+		final int query = uri.indexOf('?');
+		final String path = (query == -1? uri : uri.substring(0, query)).toLowerCase();
+		return path.endsWith(".ttf") || path.endsWith(".otf");
+	}
+
+	/** @return The glyph a font URI refers to, or null if it doesn't name a codepoint. */
+	static Glyph parse(String uri)
+	{
+		final int query = uri.indexOf('?');
+		if(query == -1)
+		{
+			return null;
+		}
+
+		int codepoint = -1;
+		int size = 0;
+		int color = 0;
+		boolean has_color = false;
+
+		try
+		{
+			for(String param: uri.substring(query + 1).split("&"))
+			{
+				if(param.startsWith("U+") || param.startsWith("u+"))
+				{
+					codepoint = Integer.parseInt(param.substring(2), 16);
+				}
+				else if(param.startsWith("size="))
+				{
+					size = Integer.parseInt(param.substring(5));
+				}
+				else if(param.startsWith("color="))
+				{
+					String hex = param.substring(6);
+					if(hex.startsWith("#")) hex = hex.substring(1);
+
+					color = (int)Long.parseLong(hex, 16);
+					if(hex.length() <= 6)
+					{
+						color |= 0xFF000000;
+					}
+
+					has_color = true;
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+
+		if(codepoint < 0 || !Character.isValidCodePoint(codepoint))
+		{
+			return null;
+		}
+
+		return new Glyph(uri.substring(0, query), codepoint, size, color, has_color);
+	}
+
+	/** @return The font at a fully resolved location, loading it the first time, or null if it doesn't exist or isn't a font. */
+	Typeface getTypeface(String location)
+	{
+		Object lock;
+
+		synchronized(typefaces)
+		{
+			if(typefaces.containsKey(location))
+			{
+				return typefaces.get(location);
+			}
+
+			lock = loading.get(location);
+			if(lock == null)
+			{
+				lock = new Object();
+				loading.put(location, lock);
+			}
+		}
+
+		synchronized(lock)
+		{
+			synchronized(typefaces)
+			{
+				// Loaded while we waited
+				if(typefaces.containsKey(location))
+				{
+					return typefaces.get(location);
+				}
+			}
+
+			Typeface typeface = load(location);
+
+			synchronized(typefaces)
+			{
+				typefaces.put(location, typeface);
+				loading.remove(location);
+			}
+
+			return typeface;
+		}
+	}
+
+	/** Drop a loaded font (e.g. because it changed), the next use loads it again. */
+	void forget(String location)
+	{
+		synchronized(typefaces)
+		{
+			typefaces.remove(location);
+		}
+	}
+
+	/** Render a glyph centred in a square bitmap of size pixels, scaled down if necessary so it fits. */
+	Bitmap render(Typeface typeface, int codepoint, int size, int color, int density)
+	{
+		final String text = new String(Character.toChars(codepoint));
+		final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+		paint.setTypeface(typeface);
+		paint.setColor(color);
+		paint.setTextSize(size);
+
+		Rect bounds = new Rect();
+		paint.getTextBounds(text, 0, text.length(), bounds);
+		if(bounds.width() <= 0 || bounds.height() <= 0)
+		{
+			// Not in the font
+			return null;
+		}
+
+		if(bounds.width() > size || bounds.height() > size)
+		{
+			paint.setTextSize(size * (float)size / Math.max(bounds.width(), bounds.height()));
+			paint.getTextBounds(text, 0, text.length(), bounds);
+		}
+
+		Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+		bitmap.setDensity(density);
+
+		Canvas canvas = new Canvas(bitmap);
+		canvas.drawText(text, (size - bounds.width()) / 2f - bounds.left, (size - bounds.height()) / 2f - bounds.top, paint);
+
+		return bitmap;
+	}
+
+	private Typeface load(String location)
+	{
+		// Typeface can't tell a missing file from a broken one (it throws either way), so check it can be opened first
+		InputStream stream = null;
+
+		try
+		{
+			if(location.startsWith("file:///android_asset/"))
+			{
+				final String path = location.substring(22);
+				assets.open(path).close();
+				return Typeface.createFromAsset(assets, path);
+			}
+			else if(location.startsWith("file://"))
+			{
+				File file = new File(location.substring(7));
+				return file.isFile()? Typeface.createFromFile(file) : null;
+			}
+
+			// Anything else has to be copied somewhere Typeface can read it from, written aside and renamed into place so a
+			// font that's being read is never half written
+			stream = opener.open(location);
+
+			cache_dir.mkdirs();
+			final String name = HttpIconCache.keyFor(location);
+			File temp = File.createTempFile(name, ".tmp", cache_dir);
+			OutputStream out = new FileOutputStream(temp);
+			boolean complete = false;
+			try
+			{
+				byte[] buffer = new byte[8192];
+				for(int read; (read = stream.read(buffer)) != -1;)
+				{
+					out.write(buffer, 0, read);
+				}
+
+				complete = true;
+			}
+			finally
+			{
+				out.close();
+
+				if(!complete)
+				{
+					temp.delete();
+				}
+			}
+
+			File file = new File(cache_dir, name + ".font");
+			if(!temp.renameTo(file))
+			{
+				temp.delete();
+				return null;
+			}
+
+			return Typeface.createFromFile(file);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+		catch (RuntimeException e)
+		{
+			// "native typeface cannot be made"
+			return null;
+		}
+		finally
+		{
+			if(stream != null)
+			{
+				try
+				{
+					stream.close();
+				}
+				catch (IOException e)
+				{
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,418 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**! Persistent on-disk cache for remotely sourced (http/https) icons.
+ *
+ * Each icon is stored as a pair of files named after a hash of its URL: the response body (.img) and its validators (.meta,
+ * holding the ETag and Last-Modified headers). A cached icon is served from disk immediately, and is revalidated with a
+ * conditional request in the background the first time it's used in each session. If the server reports a change, the new body
+ * replaces the old one and the listener is told so any decoded copies can be dropped.
+ *
+ * The total size of the cached bodies is capped; the least recently used entries are evicted first.
+ *
+ * Only depends on java.*, so it can be exercised against a local HTTP server on a plain JVM.
+ */
+class HttpIconCache
+{
+	interface Listener
+	{
+		/** Called (on the revalidation thread) when a cached icon was replaced by a newer version. */
+		void onIconChanged(String url);
+	}
+
+	static final long DEFAULT_MAX_BYTES = 8 * 1024 * 1024;
+
+	private static final String BODY_SUFFIX = ".img";
+	private static final String META_SUFFIX = ".meta";
+	private static final int TIMEOUT_MS = 15000;
+
+	private final File directory;
+	private final Executor revalidator;
+	private long max_bytes;
+	private Listener listener = null;
+
+	// URLs which have been revalidated (or are being revalidated) this session
+	private final Set<String> revalidated = new HashSet<String>();
+
+	HttpIconCache(File directory, long max_bytes, Executor revalidator)
+	{
+		this.directory = directory;
+		this.max_bytes = max_bytes;
+		this.revalidator = revalidator;
+	}
+
+	void setListener(Listener listener)
+	{
+		this.listener = listener;
+	}
+
+	void setMaxBytes(long max_bytes)
+	{
+		synchronized(this)
+		{
+			this.max_bytes = max_bytes;
+		}
+
+		// Trimming touches the file system, don't hold up the caller with it
+		Runnable trim = new Runnable()
+		{
+			public void run()
+			{
+				synchronized(HttpIconCache.this)
+				{
+					trim();
+				}
+			}
+		};
+
+		if(revalidator != null)
+		{
+			revalidator.execute(trim);
+		}
+		else
+		{
+			trim.run();
+		}
+	}
+
+	/** Open a stream to the icon at the given URL, from disk if cached, otherwise from the network (storing the result on disk).
+	 *
+	 * @throws FileNotFoundException if the server reported the icon doesn't exist (404 or 410).
+	 * @throws IOException if it couldn't be fetched for any other reason.
+	 */
+	InputStream open(final String url) throws IOException
+	{
+		final String key = keyFor(url);
+		File body = bodyFile(key);
+
+		synchronized(this)
+		{
+			if(body.exists())
+			{
+				body.setLastModified(System.currentTimeMillis());
+				scheduleRevalidation(url, key);
+				return new FileInputStream(body);
+			}
+		}
+
+		InputStream[] opened = new InputStream[1];
+		if(!fetch(url, key, null, opened))
+		{
+			throw new FileNotFoundException(url);
+		}
+
+		synchronized(this)
+		{
+			revalidated.add(url);
+		}
+
+		return opened[0];
+	}
+
+	/** Remove every cached icon. */
+	synchronized void clear()
+	{
+		File[] files = directory.listFiles();
+		if(files != null)
+		{
+			for(File file: files)
+			{
+				file.delete();
+			}
+		}
+
+		revalidated.clear();
+	}
+
+	/** @return The total size in bytes of the cached icon bodies. */
+	synchronized long size()
+	{
+		long total = 0;
+		for(File file: bodyFiles())
+		{
+			total += file.length();
+		}
+
+		return total;
+	}
+
+	private void scheduleRevalidation(final String url, final String key)
+	{
+		if(revalidator == null || !revalidated.add(url))
+		{
+			return;
+		}
+
+		revalidator.execute(new Runnable()
+		{
+			public void run()
+			{
+				Properties meta = readMeta(key);
+
+				try
+				{
+					if(fetch(url, key, meta, null) && listener != null)
+					{
+						listener.onIconChanged(url);
+					}
+				}
+				catch (IOException e)
+				{
+					// Keep serving the stale copy, retry next session
+				}
+			}
+		});
+	}
+
+	/** Fetch an icon, conditionally if validators are given.
+	 *
+	 * @param opened If not null, receives a stream to the stored body. It's opened before the cache is trimmed, so it can be
+	 * read even if the body itself doesn't fit in the cache (or another fetch evicts it).
+	 * @return true if a new body was stored, false if the server reported it unchanged (or had nothing to send).
+	 */
+	private boolean fetch(String url, String key, Properties validators, InputStream[] opened) throws IOException
+	{
+		HttpURLConnection connection = (HttpURLConnection)new URL(url).openConnection();
+		connection.setConnectTimeout(TIMEOUT_MS);
+		connection.setReadTimeout(TIMEOUT_MS);
+		connection.setUseCaches(false);
+
+		if(validators != null)
+		{
+			String etag = validators.getProperty("etag");
+			String last_modified = validators.getProperty("last-modified");
+
+			if(etag != null) connection.setRequestProperty("If-None-Match", etag);
+			if(last_modified != null) connection.setRequestProperty("If-Modified-Since", last_modified);
+		}
+
+		try
+		{
+			int status = connection.getResponseCode();
+			if(status == HttpURLConnection.HTTP_NOT_MODIFIED)
+			{
+				return false;
+			}
+			else if(status != HttpURLConnection.HTTP_OK)
+			{
+				if(validators == null)
+				{
+					// Only a definite miss if the server says so, anything else (e.g. a 503) may well work next time
+					if(status == HttpURLConnection.HTTP_NOT_FOUND || status == HttpURLConnection.HTTP_GONE)
+					{
+						throw new FileNotFoundException(url + " (HTTP " + status + ")");
+					}
+
+					throw new IOException(url + " (HTTP " + status + ")");
+				}
+
+				return false;
+			}
+
+			directory.mkdirs();
+			File temp = File.createTempFile(key, ".tmp", directory);
+			InputStream in = connection.getInputStream();
+			OutputStream out = new FileOutputStream(temp);
+			boolean complete = false;
+
+			try
+			{
+				byte[] buffer = new byte[8192];
+				for(int read; (read = in.read(buffer)) != -1;)
+				{
+					out.write(buffer, 0, read);
+				}
+
+				complete = true;
+			}
+			finally
+			{
+				in.close();
+				out.close();
+
+				if(!complete)
+				{
+					temp.delete();
+				}
+			}
+
+			Properties meta = new Properties();
+			meta.setProperty("url", url);
+			if(connection.getHeaderField("ETag") != null) meta.setProperty("etag", connection.getHeaderField("ETag"));
+			if(connection.getHeaderField("Last-Modified") != null) meta.setProperty("last-modified", connection.getHeaderField("Last-Modified"));
+
+			synchronized(this)
+			{
+				File body = bodyFile(key);
+				body.delete();
+				if(!temp.renameTo(body))
+				{
+					temp.delete();
+					throw new IOException("Failed to store " + url);
+				}
+
+				writeMeta(key, meta);
+
+				if(opened != null)
+				{
+					opened[0] = new FileInputStream(body);
+				}
+
+				trim();
+			}
+
+			return true;
+		}
+		finally
+		{
+			connection.disconnect();
+		}
+	}
+
+	// Evict least recently used entries until the cache fits within max_bytes
+	private void trim()
+	{
+		File[] bodies = bodyFiles();
+		long total = 0;
+		for(File file: bodies)
+		{
+			total += file.length();
+		}
+
+		if(total <= max_bytes)
+		{
+			return;
+		}
+
+		Arrays.sort(bodies, new Comparator<File>()
+		{
+			public int compare(File a, File b)
+			{
+				long difference = a.lastModified() - b.lastModified();
+				return difference < 0? -1 : (difference > 0? 1 : 0);
+			}
+		});
+
+		for(File body: bodies)
+		{
+			if(total <= max_bytes)
+			{
+				break;
+			}
+
+			String name = body.getName();
+			total -= body.length();
+			body.delete();
+			new File(directory, name.substring(0, name.length() - BODY_SUFFIX.length()) + META_SUFFIX).delete();
+		}
+	}
+
+	private File[] bodyFiles()
+	{
+		File[] files = directory.listFiles();
+		if(files == null)
+		{
+			return new File[0];
+		}
+
+		int count = 0;
+		for(File file: files)
+		{
+			if(file.getName().endsWith(BODY_SUFFIX))
+			{
+				files[count++] = file;
+			}
+		}
+
+		return Arrays.copyOf(files, count);
+	}
+
+	private synchronized Properties readMeta(String key)
+	{
+		Properties meta = new Properties();
+
+		try
+		{
+			InputStream in = new FileInputStream(new File(directory, key + META_SUFFIX));
+			try
+			{
+				meta.load(in);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		catch (IOException e)
+		{
+			// No validators, revalidation becomes an unconditional fetch
+		}
+
+		return meta;
+	}
+
+	private void writeMeta(String key, Properties meta) throws IOException
+	{
+		OutputStream out = new FileOutputStream(new File(directory, key + META_SUFFIX));
+		try
+		{
+			meta.store(out, null);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private File bodyFile(String key)
+	{
+		return new File(directory, key + BODY_SUFFIX);
+	}
+
+	/** @return A file name for a URL (a hex digest of it). */
+	static String keyFor(String url)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("MD5").digest(url.getBytes("UTF-8"));
+			StringBuilder key = new StringBuilder(digest.length * 2);
+			for(byte b: digest)
+			{
+				key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+
+			return key.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			return Integer.toHexString(url.hashCode());
+		}
+		catch (UnsupportedEncodingException e)
+		{
+			return Integer.toHexString(url.hashCode());
+		}
+	}
+}
@@ -0,0 +1,236 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**! Icons cut from a sprite sheet (atlas), so a whole set of icons costs a single file open and decode.
+ *
+ * A region of a sheet is given either directly, as pixel coordinates after the image location:
+ * 	img/icons.png#0,32,32,32 (x, y, width, height)
+ * or by name from a JSON manifest:
+ * 	img/icons.json#save
+ * The manifest either lists the regions itself:
+ * 	{ "image": "icons.png", "icons": { "save": [0, 32, 32, 32], ... } }
+ * or is a TexturePacker style "JSON (Hash)" export ({ "frames": { "save.png": { "frame": { x, y, w, h } } }, "meta": { "image": ... } }),
+ * in which case frames can be named with or without their extension. The image location is relative to the manifest.
+ *
+ * Regions are drawn straight from the shared sheet bitmap by RegionDrawable, nothing is copied per icon.
+ */
+class IconAtlas
+{
+	/** Fully resolved location of the sheet image. */
+	final String image;
+	final HashMap<String, Rect> regions = new HashMap<String, Rect>();
+
+	private IconAtlas(String image)
+	{
+		this.image = image;
+	}
+
+	/** @return true if uri refers to a region of a sheet rather than a whole image: its fragment is an "x,y,w,h" region or it
+	 * names an icon in a manifest. Any other fragment (e.g. "img/icon.png#v2") is just part of an image location.
+	 */
+	static boolean isRegion(String uri)
+	{
+		final int hash = uri.indexOf('#');
+		return hash != -1 && (isManifest(uri.substring(0, hash)) || parseRect(uri.substring(hash + 1)) != null);
+	}
+
+	/** @return true if location is an atlas manifest (rather than the sheet image itself). */
+	static boolean isManifest(String location)
+	{
+		return location.toLowerCase().endsWith(".json");
+	}
+
+	/** @return The region given by an "x,y,w,h" fragment, or null if it isn't one. */
+	static Rect parseRect(String fragment)
+	{
+		String[] parts = fragment.split(",");
+		if(parts.length != 4)
+		{
+			return null;
+		}
+
+		try
+		{
+			return rect(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()), Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim()));
+		}
+		catch (NumberFormatException e)
+		{
+			return null;
+		}
+	}
+
+	private static Rect rect(int x, int y, int width, int height)
+	{
+		return x >= 0 && y >= 0 && width > 0 && height > 0? new Rect(x, y, x + width, y + height) : null;
+	}
+
+	/** Read an atlas manifest.
+	 *
+	 * @param location The manifest's fully resolved location, which the image location is resolved against.
+	 */
+	static IconAtlas read(InputStream stream, String location) throws IOException, JSONException
+	{
+		StringBuilder source = new StringBuilder();
+		Reader reader = new InputStreamReader(stream, "UTF-8");
+		char[] buffer = new char[4096];
+		for(int read; (read = reader.read(buffer)) != -1;)
+		{
+			source.append(buffer, 0, read);
+		}
+
+		final JSONObject manifest = new JSONObject(source.toString());
+		final boolean texture_packer = manifest.has("frames");
+		final String image = texture_packer? manifest.getJSONObject("meta").getString("image") : manifest.getString("image");
+
+		IconAtlas atlas = new IconAtlas(image.indexOf(':') != -1? image : location.substring(0, location.lastIndexOf('/') + 1) + image);
+
+		JSONObject icons = manifest.getJSONObject(texture_packer? "frames" : "icons");
+		Iterator<?> names = icons.keys();
+		while(names.hasNext())
+		{
+			final String name = (String)names.next();
+			final Rect region;
+
+			if(texture_packer)
+			{
+				JSONObject frame = icons.getJSONObject(name).getJSONObject("frame");
+				region = rect(frame.getInt("x"), frame.getInt("y"), frame.getInt("w"), frame.getInt("h"));
+			}
+			else
+			{
+				JSONArray bounds = icons.getJSONArray(name);
+				region = rect(bounds.getInt(0), bounds.getInt(1), bounds.getInt(2), bounds.getInt(3));
+			}
+
+			if(region == null)
+			{
+				continue;
+			}
+
+			atlas.regions.put(name, region);
+
+			final int extension = name.lastIndexOf('.');
+			if(texture_packer && extension > 0 && !icons.has(name.substring(0, extension)))
+			{
+				atlas.regions.put(name.substring(0, extension), region);
+			}
+		}
+
+		return atlas;
+	}
+
+	/** Draws a region of a (shared) sheet bitmap, sized so its smaller side is no larger than the size it was created for. */
+	static class RegionDrawable extends Drawable
+	{
+		static class State extends ConstantState
+		{
+			final Bitmap sheet;
+			final Rect region;
+			final int width;
+			final int height;
+
+			State(Bitmap sheet, Rect region, int size)
+			{
+				this.sheet = sheet;
+				this.region = region;
+
+				// Like decoded icons, regions are scaled down to fit but never up
+				final float scale = Math.min(1, size / (float)Math.min(region.width(), region.height()));
+				width = Math.max(1, Math.round(region.width() * scale));
+				height = Math.max(1, Math.round(region.height() * scale));
+			}
+
+			@Override
+			public Drawable newDrawable()
+			{
+				return new RegionDrawable(this);
+			}
+
+			@Override
+			public int getChangingConfigurations()
+			{
+				return 0;
+			}
+		}
+
+		private final State state;
+		private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+		RegionDrawable(Bitmap sheet, Rect region, int size)
+		{
+			this(new State(sheet, region, size));
+		}
+
+		private RegionDrawable(State state)
+		{
+			this.state = state;
+		}
+
+		@Override
+		public void draw(Canvas canvas)
+		{
+			canvas.drawBitmap(state.sheet, state.region, getBounds(), paint);
+		}
+
+		@Override
+		public void setAlpha(int alpha)
+		{
+			paint.setAlpha(alpha);
+			invalidateSelf();
+		}
+
+		@Override
+		public void setColorFilter(ColorFilter filter)
+		{
+			paint.setColorFilter(filter);
+			invalidateSelf();
+		}
+
+		@Override
+		public int getOpacity()
+		{
+			return PixelFormat.TRANSLUCENT;
+		}
+
+		@Override
+		public int getIntrinsicWidth()
+		{
+			return state.width;
+		}
+
+		@Override
+		public int getIntrinsicHeight()
+		{
+			return state.height;
+		}
+
+		@Override
+		public ConstantState getConstantState()
+		{
+			return state;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**! In-memory LRU cache of decoded icon bitmaps.
+ *
+ * Entries are keyed by the fully resolved icon location (i.e. after relative paths have been resolved against the page bases)
+ * plus the size it was decoded at (see key()), and the cache is bounded by the total byte count of the cached bitmaps rather
+ * than the number of entries.
+ *
+ * Bitmaps are shared between all users of an entry, so callers must wrap them in their own Drawable and never recycle them.
+ */
+class IconCache
+{
+	private final LruCache<String, Bitmap> bitmaps;
+
+	IconCache(int max_bytes)
+	{
+		bitmaps = new LruCache<String, Bitmap>(max_bytes)
+		{
+			@Override
+			protected int sizeOf(String key, Bitmap bitmap)
+			{
+				return bitmap.getRowBytes() * bitmap.getHeight();
+			}
+		};
+	}
+
+	/** @return A cache sized to an eighth of the VM's heap limit. */
+	static IconCache createDefault()
+	{
+		return new IconCache((int)Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE));
+	}
+
+	/** @return The cache key for an icon location decoded at size pixels. */
+	static String key(String location, int size)
+	{
+		return location + '@' + size;
+	}
+
+	Bitmap get(String key)
+	{
+		return bitmaps.get(key);
+	}
+
+	void put(String key, Bitmap bitmap)
+	{
+		if(key != null && bitmap != null)
+		{
+			bitmaps.put(key, bitmap);
+		}
+	}
+
+	/** Remove every size of an icon location, and if it's a font every glyph rendered from it (see GlyphRenderer.Glyph.key()). */
+	void remove(String location)
+	{
+		final String prefix = location + '@';
+		final String glyph_prefix = location + "?U+";
+		for(String key: bitmaps.snapshot().keySet())
+		{
+			if(key.startsWith(prefix) || key.startsWith(glyph_prefix))
+			{
+				bitmaps.remove(key);
+			}
+		}
+	}
+
+	void clear()
+	{
+		bitmaps.evictAll();
+	}
+
+	int hitCount()
+	{
+		return bitmaps.hitCount();
+	}
+
+	int missCount()
+	{
+		return bitmaps.missCount();
+	}
+
+	/** @return The number of bytes currently held by cached bitmaps. */
+	int size()
+	{
+		return bitmaps.size();
+	}
+
+	/** @return The maximum number of bytes the cache will hold before evicting. */
+	int maxSize()
+	{
+		return bitmaps.maxSize();
+	}
+}
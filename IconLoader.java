@@ -0,0 +1,305 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+/**! Loads icons on a small, fixed-size pool of background threads owned by the plugin.
+ *
+ * Concurrent requests for the same URI (at the same size) are coalesced into a single load, the result of which is handed to every waiting target.
+ * Each target belongs to a group (e.g. the current menu), so all pending loads for a group can be dropped when whatever they
+ * were destined for has been thrown away; a load is only abandoned once nobody is waiting for it any more.
+ *
+ * Queued loads run highest priority first (oldest first within a priority). Icons needed on screen load at PRIORITY_VISIBLE, icons
+ * that are only being warmed up ahead of time (see prefetchIcons) usually go behind them; a queued load is bumped up if a
+ * more urgent request joins it.
+ *
+ * Icons the source already has (see Source.cached()) are handed to the target straight away, rather than queueing behind loads
+ * in progress and arriving a frame or more later.
+ *
+ * load() and cancel() are expected to be called from the UI thread, targets are always notified on the UI thread.
+ */
+class IconLoader
+{
+	interface Source
+	{
+		/** Load an icon at (roughly) size pixels, called on a worker thread. @return The icon, or null if it couldn't be loaded. */
+		Drawable load(String uri, int size);
+
+		/** Get an icon that's already loaded (e.g. cached), without blocking, called on the UI thread. @return The icon, or null if it has to be loaded. */
+		Drawable cached(String uri, int size);
+	}
+
+	interface Target
+	{
+		/** Called on the UI thread once the icon has loaded (not called if it failed to load). */
+		void onIconLoaded(Drawable icon);
+	}
+
+	/** A target that also wants to hear about failures. */
+	interface ResultTarget extends Target
+	{
+		/** Called on the UI thread if the icon couldn't be loaded. */
+		void onIconFailed();
+	}
+
+	static final int PRIORITY_VISIBLE = 0;
+	static final int PRIORITY_PREFETCH = -1;
+
+	private static class Waiter
+	{
+		final Object group;
+		final Target target;
+
+		Waiter(Object group, Target target)
+		{
+			this.group = group;
+			this.target = target;
+		}
+	}
+
+	private class Request implements Runnable, Comparable<Request>
+	{
+		final String key;
+		final String uri;
+		final int size;
+		final ArrayList<Waiter> waiters = new ArrayList<Waiter>(2);
+		int priority;
+		long sequence;
+		volatile boolean cancelled = false;
+
+		Request(String key, String uri, int size, int priority)
+		{
+			this.key = key;
+			this.uri = uri;
+			this.size = size;
+			this.priority = priority;
+		}
+
+		public int compareTo(Request other)
+		{
+			if(priority != other.priority)
+			{
+				return priority > other.priority? -1 : 1;
+			}
+
+			return sequence < other.sequence? -1 : (sequence > other.sequence? 1 : 0);
+		}
+
+		public void run()
+		{
+			if(cancelled)
+			{
+				return;
+			}
+
+			final Drawable icon = source.load(uri, size);
+
+			handler.post(new Runnable()
+			{
+				public void run()
+				{
+					deliver(Request.this, icon);
+				}
+			});
+		}
+	}
+
+	private final Source source;
+	private final Handler handler = new Handler(Looper.getMainLooper());
+	private final ThreadPoolExecutor executor;
+	private final HashMap<String, Request> in_flight = new HashMap<String, Request>();
+	// The in flight requests each group is waiting on, so cancelling a group only touches its own requests
+	private final HashMap<Object, HashSet<Request>> groups = new HashMap<Object, HashSet<Request>>();
+	private long next_sequence = 0;
+
+	IconLoader(Source source, int threads)
+	{
+		this.source = source;
+
+		executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(), new ThreadFactory()
+		{
+			private final AtomicInteger count = new AtomicInteger(1);
+
+			public Thread newThread(final Runnable runnable)
+			{
+				return new Thread(new Runnable()
+				{
+					public void run()
+					{
+						Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+						runnable.run();
+					}
+				}, "ActionBar icon #" + count.getAndIncrement());
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/** @return A loader sized to the device (2-4 threads). */
+	static IconLoader create(Source source)
+	{
+		int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		return new IconLoader(source, threads);
+	}
+
+	/** Load an icon at a given pixel size for a target, joining any load already in flight for the same URI and size. */
+	void load(String uri, int size, Object group, Target target)
+	{
+		load(uri, size, group, target, PRIORITY_VISIBLE);
+	}
+
+	/** Load an icon at a given priority (higher first, see PRIORITY_VISIBLE). */
+	void load(String uri, int size, Object group, Target target, int priority)
+	{
+		final Drawable icon = source.cached(uri, size);
+		if(icon != null)
+		{
+			target.onIconLoaded(icon);
+			return;
+		}
+
+		request(uri, size, group, target, priority);
+	}
+
+	private synchronized void request(String uri, int size, Object group, Target target, int priority)
+	{
+		final String key = uri + '@' + size;
+		Request request = in_flight.get(key);
+
+		if(request == null)
+		{
+			request = new Request(key, uri, size, priority);
+			request.sequence = next_sequence++;
+			in_flight.put(key, request);
+			request.waiters.add(new Waiter(group, target));
+			executor.execute(request);
+		}
+		else
+		{
+			request.waiters.add(new Waiter(group, target));
+
+			// Still queued, move it up (a queue entry can't be reordered in place)
+			if(priority > request.priority && executor.remove(request))
+			{
+				request.priority = priority;
+				executor.execute(request);
+			}
+		}
+
+		HashSet<Request> requests = groups.get(group);
+		if(requests == null)
+		{
+			requests = new HashSet<Request>();
+			groups.put(group, requests);
+		}
+
+		requests.add(request);
+	}
+
+	/** Drop every pending target in a group, abandoning loads nobody else is waiting for. */
+	synchronized void cancel(Object group)
+	{
+		final HashSet<Request> requests = groups.remove(group);
+		if(requests == null)
+		{
+			return;
+		}
+
+		for(Request request: requests)
+		{
+			for(int i = request.waiters.size() - 1; i >= 0; --i)
+			{
+				if(request.waiters.get(i).group == group)
+				{
+					request.waiters.remove(i);
+				}
+			}
+
+			if(request.waiters.isEmpty())
+			{
+				// Left in the queue (removing it means a linear search), it's skipped when its turn comes
+				request.cancelled = true;
+				in_flight.remove(request.key);
+			}
+		}
+	}
+
+	void shutdown()
+	{
+		synchronized(this)
+		{
+			in_flight.clear();
+			groups.clear();
+		}
+
+		executor.shutdownNow();
+	}
+
+	private void deliver(Request request, Drawable icon)
+	{
+		Waiter[] waiters;
+
+		synchronized(this)
+		{
+			// Cancelled (and possibly re-requested) since it was started
+			if(in_flight.get(request.key) != request)
+			{
+				return;
+			}
+
+			in_flight.remove(request.key);
+			waiters = request.waiters.toArray(new Waiter[request.waiters.size()]);
+
+			for(Waiter waiter: waiters)
+			{
+				HashSet<Request> requests = groups.get(waiter.group);
+				if(requests != null)
+				{
+					requests.remove(request);
+					if(requests.isEmpty()) groups.remove(waiter.group);
+				}
+			}
+		}
+
+		if(icon == null)
+		{
+			for(Waiter waiter: waiters)
+			{
+				if(waiter.target instanceof ResultTarget)
+				{
+					((ResultTarget)waiter.target).onIconFailed();
+				}
+			}
+
+			return;
+		}
+
+		for(int i = 0; i < waiters.length; ++i)
+		{
+			// Drawables hold per-view state (bounds, alpha...), so each target gets its own instance sharing the same bitmap
+			Drawable target_icon = icon;
+			if(i > 0 && icon.getConstantState() != null)
+			{
+				target_icon = icon.getConstantState().newDrawable();
+			}
+
+			waiters[i].target.onIconLoaded(target_icon);
+		}
+	}
+}
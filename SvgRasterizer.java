@@ -0,0 +1,864 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.util.Xml;
+
+/**! Rasterizes the subset of SVG that icons are generally made of.
+ *
+ * Supported: the viewBox (or width/height), <g> groups, <path> (all commands, including arcs), <rect>, <circle>, <ellipse>,
+ * <line>, <polyline> and <polygon>, the transform attribute, and fill, fill-opacity, fill-rule, stroke, stroke-width,
+ * stroke-opacity and opacity given as attributes or in a style attribute. Colours are #rgb, #rrggbb, rgb(r, g, b), a few
+ * basic names, none and currentColor (the action bar's menu text colour). Everything else (gradients, text, <use>, CSS...) is
+ * ignored.
+ *
+ * The document is drawn while it's parsed, a single pass that never builds a model of it.
+ */
+class SvgRasterizer
+{
+	// Inherited presentation attributes
+	private static class Style
+	{
+		int fill = 0xFF000000;
+		boolean has_fill = true;
+		float fill_opacity = 1;
+		boolean even_odd = false;
+		int stroke = 0xFF000000;
+		boolean has_stroke = false;
+		float stroke_opacity = 1;
+		float stroke_width = 1;
+		float opacity = 1;
+
+		Style copy()
+		{
+			Style style = new Style();
+			style.fill = fill;
+			style.has_fill = has_fill;
+			style.fill_opacity = fill_opacity;
+			style.even_odd = even_odd;
+			style.stroke = stroke;
+			style.has_stroke = has_stroke;
+			style.stroke_opacity = stroke_opacity;
+			style.stroke_width = stroke_width;
+			// Group opacity isn't inherited as such, but applying it to each child is close enough for icons
+			style.opacity = opacity;
+			return style;
+		}
+	}
+
+	/** @return true if a location refers to an SVG image. */
+	static boolean isSvg(String location)
+	{
+		final int query = location.indexOf('?');
+		return (query == -1? location : location.substring(0, query)).toLowerCase().endsWith(".svg");
+	}
+
+	/** Rasterize an SVG document so that it fits within a size x size pixel square (keeping its aspect ratio).
+	 *
+	 * @param current_color Colour used for currentColor.
+	 * @return The rendered bitmap, or null if the document isn't SVG.
+	 */
+	static Bitmap rasterize(InputStream stream, int size, int density, int current_color) throws IOException
+	{
+		try
+		{
+			XmlPullParser parser = Xml.newPullParser();
+			parser.setInput(stream, null);
+			return new SvgRasterizer(parser, current_color).draw(size, density);
+		}
+		catch (XmlPullParserException e)
+		{
+			throw new IOException("Invalid SVG: " + e.getMessage());
+		}
+	}
+
+	private final XmlPullParser parser;
+	private final int current_color;
+	private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+	private final ArrayList<Style> styles = new ArrayList<Style>();
+	private Bitmap bitmap = null;
+	private Canvas canvas = null;
+
+	private SvgRasterizer(XmlPullParser parser, int current_color)
+	{
+		this.parser = parser;
+		this.current_color = current_color;
+	}
+
+	private Bitmap draw(int size, int density) throws XmlPullParserException, IOException
+	{
+		// Depth of elements being skipped (unsupported containers such as <defs>), 0 when drawing
+		int skipping = 0;
+
+		for(int event = parser.getEventType(); event != XmlPullParser.END_DOCUMENT; event = parser.next())
+		{
+			if(event == XmlPullParser.START_TAG)
+			{
+				final String name = parser.getName();
+
+				if(skipping > 0)
+				{
+					++skipping;
+				}
+				else if(canvas == null)
+				{
+					if(!"svg".equals(name))
+					{
+						return null;
+					}
+
+					begin(size, density);
+				}
+				else if("g".equals(name) || "svg".equals(name))
+				{
+					pushStyle();
+					canvas.save();
+					applyTransform();
+				}
+				else if("defs".equals(name) || "clipPath".equals(name) || "mask".equals(name) || "symbol".equals(name) || "pattern".equals(name))
+				{
+					skipping = 1;
+				}
+				else
+				{
+					Path path = shape(name);
+					if(path != null)
+					{
+						pushStyle();
+						final boolean transformed = parser.getAttributeValue(null, "transform") != null;
+						if(transformed)
+						{
+							canvas.save();
+							applyTransform();
+						}
+
+						paintPath(path, styles.get(styles.size() - 1));
+
+						if(transformed)
+						{
+							canvas.restore();
+						}
+
+						styles.remove(styles.size() - 1);
+					}
+				}
+			}
+			else if(event == XmlPullParser.END_TAG)
+			{
+				final String name = parser.getName();
+
+				if(skipping > 0)
+				{
+					--skipping;
+				}
+				else if(canvas != null && ("g".equals(name) || "svg".equals(name)) && styles.size() > 1)
+				{
+					canvas.restore();
+					styles.remove(styles.size() - 1);
+				}
+			}
+		}
+
+		return bitmap;
+	}
+
+	// Set up the bitmap from the root element, mapping the viewBox into it centred
+	private void begin(int size, int density)
+	{
+		float width = length(parser.getAttributeValue(null, "width"), 0);
+		float height = length(parser.getAttributeValue(null, "height"), 0);
+		float x = 0, y = 0;
+
+		float[] view_box = numbers(parser.getAttributeValue(null, "viewBox"));
+		if(view_box.length == 4 && view_box[2] > 0 && view_box[3] > 0)
+		{
+			x = view_box[0];
+			y = view_box[1];
+			width = view_box[2];
+			height = view_box[3];
+		}
+		else if(width <= 0 || height <= 0)
+		{
+			width = height = 24;
+		}
+
+		final float scale = size / Math.max(width, height);
+		bitmap = Bitmap.createBitmap(Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)), Bitmap.Config.ARGB_8888);
+		bitmap.setDensity(density);
+
+		canvas = new Canvas(bitmap);
+		canvas.scale(scale, scale);
+		canvas.translate(-x, -y);
+
+		styles.add(new Style());
+		applyStyle(styles.get(0));
+	}
+
+	private void pushStyle()
+	{
+		Style style = styles.get(styles.size() - 1).copy();
+		applyStyle(style);
+		styles.add(style);
+	}
+
+	// Presentation attributes first, then the style attribute (which takes precedence)
+	private void applyStyle(Style style)
+	{
+		final String[] properties = { "fill", "fill-opacity", "fill-rule", "stroke", "stroke-width", "stroke-opacity", "opacity" };
+		for(String property: properties)
+		{
+			String value = parser.getAttributeValue(null, property);
+			if(value != null)
+			{
+				applyProperty(style, property, value.trim());
+			}
+		}
+
+		String css = parser.getAttributeValue(null, "style");
+		if(css != null)
+		{
+			for(String declaration: css.split(";"))
+			{
+				int colon = declaration.indexOf(':');
+				if(colon != -1)
+				{
+					applyProperty(style, declaration.substring(0, colon).trim(), declaration.substring(colon + 1).trim());
+				}
+			}
+		}
+	}
+
+	private void applyProperty(Style style, String property, String value)
+	{
+		if("fill".equals(property))
+		{
+			style.has_fill = !"none".equals(value);
+			if(style.has_fill) style.fill = color(value, style.fill);
+		}
+		else if("stroke".equals(property))
+		{
+			style.has_stroke = !"none".equals(value);
+			if(style.has_stroke) style.stroke = color(value, style.stroke);
+		}
+		else if("fill-opacity".equals(property)) style.fill_opacity = length(value, 1);
+		else if("stroke-opacity".equals(property)) style.stroke_opacity = length(value, 1);
+		else if("opacity".equals(property)) style.opacity *= length(value, 1);
+		else if("stroke-width".equals(property)) style.stroke_width = length(value, 1);
+		else if("fill-rule".equals(property)) style.even_odd = "evenodd".equals(value);
+	}
+
+	private void paintPath(Path path, Style style)
+	{
+		if(style.has_fill)
+		{
+			path.setFillType(style.even_odd? Path.FillType.EVEN_ODD : Path.FillType.WINDING);
+			paint.setStyle(Paint.Style.FILL);
+			paint.setColor(withOpacity(style.fill, style.fill_opacity * style.opacity));
+			canvas.drawPath(path, paint);
+		}
+
+		if(style.has_stroke && style.stroke_width > 0)
+		{
+			paint.setStyle(Paint.Style.STROKE);
+			paint.setStrokeWidth(style.stroke_width);
+			paint.setColor(withOpacity(style.stroke, style.stroke_opacity * style.opacity));
+			canvas.drawPath(path, paint);
+		}
+	}
+
+	private static int withOpacity(int color, float opacity)
+	{
+		final int alpha = Math.round((color >>> 24) * Math.max(0, Math.min(1, opacity)));
+		return (alpha << 24) | (color & 0xFFFFFF);
+	}
+
+	/** @return The outline of a basic shape element, or null if it isn't one. */
+	private Path shape(String name)
+	{
+		Path path = new Path();
+
+		if("path".equals(name))
+		{
+			String data = parser.getAttributeValue(null, "d");
+			if(data == null)
+			{
+				return null;
+			}
+
+			new PathParser(data, path).parse();
+		}
+		else if("rect".equals(name))
+		{
+			final float x = attribute("x"), y = attribute("y"), width = attribute("width"), height = attribute("height");
+			float rx = attribute("rx"), ry = attribute("ry");
+			if(rx == 0) rx = ry;
+			if(ry == 0) ry = rx;
+
+			if(rx > 0)
+			{
+				path.addRoundRect(new RectF(x, y, x + width, y + height), Math.min(rx, width / 2), Math.min(ry, height / 2), Path.Direction.CW);
+			}
+			else
+			{
+				path.addRect(x, y, x + width, y + height, Path.Direction.CW);
+			}
+		}
+		else if("circle".equals(name))
+		{
+			path.addCircle(attribute("cx"), attribute("cy"), attribute("r"), Path.Direction.CW);
+		}
+		else if("ellipse".equals(name))
+		{
+			final float cx = attribute("cx"), cy = attribute("cy"), rx = attribute("rx"), ry = attribute("ry");
+			path.addOval(new RectF(cx - rx, cy - ry, cx + rx, cy + ry), Path.Direction.CW);
+		}
+		else if("line".equals(name))
+		{
+			path.moveTo(attribute("x1"), attribute("y1"));
+			path.lineTo(attribute("x2"), attribute("y2"));
+		}
+		else if("polyline".equals(name) || "polygon".equals(name))
+		{
+			final float[] points = numbers(parser.getAttributeValue(null, "points"));
+			if(points.length < 4)
+			{
+				return null;
+			}
+
+			path.moveTo(points[0], points[1]);
+			for(int i = 2; i + 1 < points.length; i += 2)
+			{
+				path.lineTo(points[i], points[i + 1]);
+			}
+
+			if("polygon".equals(name))
+			{
+				path.close();
+			}
+		}
+		else
+		{
+			return null;
+		}
+
+		return path;
+	}
+
+	private void applyTransform()
+	{
+		String transform = parser.getAttributeValue(null, "transform");
+		if(transform == null)
+		{
+			return;
+		}
+
+		Matrix matrix = new Matrix();
+
+		// Applied left to right, e.g. "translate(12 12) rotate(45)"
+		int start = 0;
+		for(int open; (open = transform.indexOf('(', start)) != -1;)
+		{
+			int close = transform.indexOf(')', open);
+			if(close == -1)
+			{
+				break;
+			}
+
+			final String type = transform.substring(start, open).replace(',', ' ').trim();
+			final float[] v = numbers(transform.substring(open + 1, close));
+			start = close + 1;
+
+			if("matrix".equals(type) && v.length == 6)
+			{
+				Matrix m = new Matrix();
+				m.setValues(new float[] { v[0], v[2], v[4], v[1], v[3], v[5], 0, 0, 1 });
+				matrix.preConcat(m);
+			}
+			else if("translate".equals(type) && v.length >= 1)
+			{
+				matrix.preTranslate(v[0], v.length > 1? v[1] : 0);
+			}
+			else if("scale".equals(type) && v.length >= 1)
+			{
+				matrix.preScale(v[0], v.length > 1? v[1] : v[0]);
+			}
+			else if("rotate".equals(type) && v.length >= 1)
+			{
+				if(v.length >= 3) matrix.preRotate(v[0], v[1], v[2]);
+				else matrix.preRotate(v[0]);
+			}
+			else if("skewX".equals(type) && v.length == 1)
+			{
+				matrix.preSkew((float)Math.tan(Math.toRadians(v[0])), 0);
+			}
+			else if("skewY".equals(type) && v.length == 1)
+			{
+				matrix.preSkew(0, (float)Math.tan(Math.toRadians(v[0])));
+			}
+		}
+
+		canvas.concat(matrix);
+	}
+
+	private float attribute(String name)
+	{
+		return length(parser.getAttributeValue(null, name), 0);
+	}
+
+	private int color(String value, int fallback)
+	{
+		if("currentColor".equals(value))
+		{
+			return current_color;
+		}
+
+		try
+		{
+			if(value.startsWith("#"))
+			{
+				String hex = value.substring(1);
+				if(hex.length() == 3)
+				{
+					hex = new StringBuilder().append(hex.charAt(0)).append(hex.charAt(0)).append(hex.charAt(1)).append(hex.charAt(1))
+						.append(hex.charAt(2)).append(hex.charAt(2)).toString();
+				}
+
+				return 0xFF000000 | Integer.parseInt(hex, 16);
+			}
+			else if(value.startsWith("rgb(") && value.endsWith(")"))
+			{
+				final float[] rgb = numbers(value.substring(4, value.length() - 1).replace("%", ""));
+				final float scale = value.indexOf('%') != -1? 2.55f : 1;
+				if(rgb.length == 3)
+				{
+					return 0xFF000000 | (Math.round(rgb[0] * scale) << 16) | (Math.round(rgb[1] * scale) << 8) | Math.round(rgb[2] * scale);
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			return fallback;
+		}
+
+		if("black".equals(value)) return 0xFF000000;
+		if("white".equals(value)) return 0xFFFFFFFF;
+		if("red".equals(value)) return 0xFFFF0000;
+		if("green".equals(value)) return 0xFF008000;
+		if("blue".equals(value)) return 0xFF0000FF;
+		if("gray".equals(value) || "grey".equals(value)) return 0xFF808080;
+		if("transparent".equals(value)) return 0;
+
+		return fallback;
+	}
+
+	/** @return A length ignoring any unit (px, pt...), or fallback if there isn't one. */
+	private static float length(String value, float fallback)
+	{
+		if(value == null)
+		{
+			return fallback;
+		}
+
+		float[] values = numbers(value);
+		return values.length > 0? values[0] : fallback;
+	}
+
+	/** @return The numbers in a comma and/or whitespace separated list (as used by viewBox, points and transforms). */
+	private static float[] numbers(String list)
+	{
+		if(list == null)
+		{
+			return new float[0];
+		}
+
+		PathParser parser = new PathParser(list, null);
+		float[] values = new float[8];
+		int count = 0;
+
+		while(parser.hasNumber())
+		{
+			if(count == values.length)
+			{
+				float[] grown = new float[count * 2];
+				System.arraycopy(values, 0, grown, 0, count);
+				values = grown;
+			}
+
+			values[count++] = parser.number();
+		}
+
+		float[] result = new float[count];
+		System.arraycopy(values, 0, result, 0, count);
+		return result;
+	}
+
+	/** Path data ("M 10 10 L 20 20 Z"...) parser, building an android.graphics.Path. */
+	static class PathParser
+	{
+		private final String data;
+		private final Path path;
+		private int position = 0;
+
+		// Current point, start of the current sub-path, and the last control point (for the smooth curve commands)
+		private float x, y, start_x, start_y, control_x, control_y;
+
+		PathParser(String data, Path path)
+		{
+			this.data = data;
+			this.path = path;
+		}
+
+		void parse()
+		{
+			char command = 0;
+			char previous = 0;
+
+			while(true)
+			{
+				skipSeparators();
+				if(position >= data.length())
+				{
+					break;
+				}
+
+				char c = data.charAt(position);
+				if(Character.isLetter(c) && c != 'e' && c != 'E')
+				{
+					command = c;
+					++position;
+				}
+				else if(command == 0 || command == 'Z' || command == 'z')
+				{
+					// Garbage before the first command, or numbers following a close
+					break;
+				}
+				else if(command == 'M')
+				{
+					// Coordinates following a move are implicit line-tos
+					command = 'L';
+				}
+				else if(command == 'm')
+				{
+					command = 'l';
+				}
+
+				if(!segment(command, previous))
+				{
+					break;
+				}
+
+				previous = command;
+			}
+		}
+
+		// Apply one command (with its arguments), returns false if the data is malformed
+		private boolean segment(char command, char previous)
+		{
+			final boolean relative = Character.isLowerCase(command);
+			final float ox = relative? x : 0, oy = relative? y : 0;
+
+			switch(Character.toUpperCase(command))
+			{
+				case 'Z':
+					path.close();
+					x = control_x = start_x;
+					y = control_y = start_y;
+					return true;
+
+				case 'M':
+				{
+					if(!hasNumber()) return false;
+					x = control_x = start_x = ox + number();
+					y = control_y = start_y = oy + number();
+					path.moveTo(x, y);
+					return true;
+				}
+
+				case 'L':
+				{
+					if(!hasNumber()) return false;
+					x = control_x = ox + number();
+					y = control_y = oy + number();
+					path.lineTo(x, y);
+					return true;
+				}
+
+				case 'H':
+				{
+					if(!hasNumber()) return false;
+					x = control_x = ox + number();
+					control_y = y;
+					path.lineTo(x, y);
+					return true;
+				}
+
+				case 'V':
+				{
+					if(!hasNumber()) return false;
+					y = control_y = oy + number();
+					control_x = x;
+					path.lineTo(x, y);
+					return true;
+				}
+
+				case 'C':
+				{
+					if(!hasNumber()) return false;
+					final float x1 = ox + number(), y1 = oy + number();
+					control_x = ox + number();
+					control_y = oy + number();
+					x = ox + number();
+					y = oy + number();
+					path.cubicTo(x1, y1, control_x, control_y, x, y);
+					return true;
+				}
+
+				case 'S':
+				{
+					if(!hasNumber()) return false;
+					final boolean smooth = "CcSs".indexOf(previous) != -1;
+					final float x1 = smooth? 2 * x - control_x : x, y1 = smooth? 2 * y - control_y : y;
+					control_x = ox + number();
+					control_y = oy + number();
+					x = ox + number();
+					y = oy + number();
+					path.cubicTo(x1, y1, control_x, control_y, x, y);
+					return true;
+				}
+
+				case 'Q':
+				{
+					if(!hasNumber()) return false;
+					control_x = ox + number();
+					control_y = oy + number();
+					x = ox + number();
+					y = oy + number();
+					path.quadTo(control_x, control_y, x, y);
+					return true;
+				}
+
+				case 'T':
+				{
+					if(!hasNumber()) return false;
+					final boolean smooth = "QqTt".indexOf(previous) != -1;
+					control_x = smooth? 2 * x - control_x : x;
+					control_y = smooth? 2 * y - control_y : y;
+					x = ox + number();
+					y = oy + number();
+					path.quadTo(control_x, control_y, x, y);
+					return true;
+				}
+
+				case 'A':
+				{
+					if(!hasNumber()) return false;
+					final float rx = Math.abs(number()), ry = Math.abs(number()), rotation = number();
+					final boolean large_arc = flag(), sweep = flag();
+					final float end_x = ox + number(), end_y = oy + number();
+					arc(x, y, end_x, end_y, rx, ry, rotation, large_arc, sweep);
+					x = control_x = end_x;
+					y = control_y = end_y;
+					return true;
+				}
+
+				default:
+					return false;
+			}
+		}
+
+		// Convert an endpoint parameterised elliptical arc to cubic beziers (SVG 1.1 implementation notes, F.6.5)
+		private void arc(float x1, float y1, float x2, float y2, float rx, float ry, float rotation, boolean large_arc, boolean sweep)
+		{
+			if(x1 == x2 && y1 == y2)
+			{
+				return;
+			}
+
+			if(rx == 0 || ry == 0)
+			{
+				path.lineTo(x2, y2);
+				return;
+			}
+
+			final double phi = Math.toRadians(rotation);
+			final double cos_phi = Math.cos(phi), sin_phi = Math.sin(phi);
+
+			final double dx = (x1 - x2) / 2.0, dy = (y1 - y2) / 2.0;
+			final double x1p = cos_phi * dx + sin_phi * dy;
+			final double y1p = -sin_phi * dx + cos_phi * dy;
+
+			// Scale up radii that are too small to reach the end point
+			double rx2 = rx * (double)rx, ry2 = ry * (double)ry;
+			final double lambda = (x1p * x1p) / rx2 + (y1p * y1p) / ry2;
+			double a = rx, b = ry;
+			if(lambda > 1)
+			{
+				a *= Math.sqrt(lambda);
+				b *= Math.sqrt(lambda);
+				rx2 = a * a;
+				ry2 = b * b;
+			}
+
+			double numerator = rx2 * ry2 - rx2 * y1p * y1p - ry2 * x1p * x1p;
+			double coefficient = numerator <= 0? 0 : Math.sqrt(numerator / (rx2 * y1p * y1p + ry2 * x1p * x1p));
+			if(large_arc == sweep)
+			{
+				coefficient = -coefficient;
+			}
+
+			final double cxp = coefficient * a * y1p / b;
+			final double cyp = -coefficient * b * x1p / a;
+			final double cx = cos_phi * cxp - sin_phi * cyp + (x1 + x2) / 2.0;
+			final double cy = sin_phi * cxp + cos_phi * cyp + (y1 + y2) / 2.0;
+
+			final double theta = angle(1, 0, (x1p - cxp) / a, (y1p - cyp) / b);
+			double delta = angle((x1p - cxp) / a, (y1p - cyp) / b, (-x1p - cxp) / a, (-y1p - cyp) / b);
+			if(!sweep && delta > 0) delta -= 2 * Math.PI;
+			else if(sweep && delta < 0) delta += 2 * Math.PI;
+
+			// One cubic per (at most) quarter turn
+			final int segments = (int)Math.ceil(Math.abs(delta) / (Math.PI / 2) - 1e-7);
+			final double step = delta / segments;
+			final double k = 4.0 / 3.0 * Math.tan(step / 4);
+
+			double t = theta;
+			for(int i = 0; i < segments; ++i)
+			{
+				final double cos1 = Math.cos(t), sin1 = Math.sin(t);
+				final double cos2 = Math.cos(t + step), sin2 = Math.sin(t + step);
+
+				// Unit circle control points, then scaled, rotated and moved onto the ellipse
+				final double[] points = {
+					cos1 - k * sin1, sin1 + k * cos1,
+					cos2 + k * sin2, sin2 - k * cos2,
+					cos2, sin2
+				};
+
+				float[] mapped = new float[6];
+				for(int p = 0; p < 6; p += 2)
+				{
+					final double ex = a * points[p], ey = b * points[p + 1];
+					mapped[p] = (float)(cos_phi * ex - sin_phi * ey + cx);
+					mapped[p + 1] = (float)(sin_phi * ex + cos_phi * ey + cy);
+				}
+
+				path.cubicTo(mapped[0], mapped[1], mapped[2], mapped[3], mapped[4], mapped[5]);
+				t += step;
+			}
+		}
+
+		private static double angle(double ux, double uy, double vx, double vy)
+		{
+			return Math.atan2(ux * vy - uy * vx, ux * vx + uy * vy);
+		}
+
+		private void skipSeparators()
+		{
+			while(position < data.length())
+			{
+				char c = data.charAt(position);
+				if(c != ',' && !Character.isWhitespace(c))
+				{
+					break;
+				}
+
+				++position;
+			}
+		}
+
+		boolean hasNumber()
+		{
+			skipSeparators();
+			if(position >= data.length())
+			{
+				return false;
+			}
+
+			char c = data.charAt(position);
+			return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+		}
+
+		// Arc flags may be written without separators ("a1 1 0 00 1 1")
+		private boolean flag()
+		{
+			skipSeparators();
+			if(position >= data.length())
+			{
+				return false;
+			}
+
+			return data.charAt(position++) == '1';
+		}
+
+		/** @return The next number, which may run straight into the one after it ("1.5.5" or "1-2"). */
+		float number()
+		{
+			skipSeparators();
+
+			final int start = position;
+			boolean seen_point = false, seen_exponent = false;
+
+			if(position < data.length() && (data.charAt(position) == '-' || data.charAt(position) == '+'))
+			{
+				++position;
+			}
+
+			while(position < data.length())
+			{
+				char c = data.charAt(position);
+
+				if(c >= '0' && c <= '9')
+				{
+					++position;
+				}
+				else if(c == '.' && !seen_point && !seen_exponent)
+				{
+					seen_point = true;
+					++position;
+				}
+				else if((c == 'e' || c == 'E') && !seen_exponent && position + 1 < data.length()
+					&& "0123456789+-".indexOf(data.charAt(position + 1)) != -1)
+				{
+					seen_exponent = true;
+					position += 2;
+				}
+				else
+				{
+					break;
+				}
+			}
+
+			if(position == start)
+			{
+				// Not a number, skip whatever it is so parsing can't get stuck
+				++position;
+				return 0;
+			}
+
+			try
+			{
+				return Float.parseFloat(data.substring(start, position));
+			}
+			catch (NumberFormatException e)
+			{
+				return 0;
+			}
+		}
+	}
+}
@@ -3,7 +3,15 @@
 // This program is licensed under the 3-clause "Modified" BSD license,
 // see LICENSE file for full definition.
 
-var ActionBar = function() {};
+var ActionBar = function()
+{
+	// Registered menus and tab bars by id (see registerMenu/registerTabs)
+	this.menu_templates = {};
+	this.tab_templates = {};
+
+	// Definitions of the states saved by pushState, for their callbacks
+	this.states = [];
+};
 
 ActionBar.prototype.DISPLAY_USE_LOGO = 1;
 ActionBar.prototype.DISPLAY_SHOW_HOME = 2;
@@ -96,6 +104,208 @@ ActionBar.prototype.setTabs = function(tabs, callback)
 		'ActionBar', 'setTabs', [tabs]);
 };
 
+// Apply several operations in one call (and one UI update), e.g.
+//   ActionBar.batch([
+//     { action: 'setTitle', args: ['Inbox'] },
+//     { action: 'setNavigationMode', args: [ActionBar.NAVIGATION_MODE_TABS] },
+//     { action: 'setTabs', args: [tabs] }
+//   ], function(errors, results) { ... });
+// errors is undefined if every operation succeeded, otherwise a list of { index, action, error }.
+ActionBar.prototype.batch = function(operations, callback)
+{
+	callback = callback || function() {};
+
+	var actionbar = window.plugins.actionbar;
+	var old = {
+		menu: actionbar.menu, tabs: actionbar.tabs, navigation_items: actionbar.navigation_items,
+		menu_templates: {}, tab_templates: {}, states: actionbar.states.slice()
+	};
+
+	for(var id in actionbar.menu_templates) old.menu_templates[id] = actionbar.menu_templates[id];
+	for(var id in actionbar.tab_templates) old.tab_templates[id] = actionbar.tab_templates[id];
+
+	function restore()
+	{
+		actionbar.menu = old.menu;
+		actionbar.tabs = old.tabs;
+		actionbar.navigation_items = old.navigation_items;
+		actionbar.menu_templates = old.menu_templates;
+		actionbar.tab_templates = old.tab_templates;
+		actionbar.states = old.states.slice();
+	}
+
+	// Keep the JS side definitions (and their callbacks) in step, as the individual calls do. Operations that failed natively
+	// (failed[index] set) had no effect there, so they're skipped.
+	function apply(failed)
+	{
+		for(var i = 0; i < operations.length; ++i)
+		{
+			if(failed[i]) continue;
+
+			var operation = operations[i];
+			var arg = operation.args? operation.args[0] : undefined;
+			var previous;
+
+			if(operation.action == 'setMenu') actionbar.menu = arg;
+			else if(operation.action == 'setTabs') actionbar.tabs = arg;
+			else if(operation.action == 'setListNavigation') actionbar.navigation_items = arg;
+			else if(operation.action == 'registerMenu')
+			{
+				previous = actionbar.menu_templates[operation.args[1]];
+				actionbar.menu_templates[operation.args[1]] = arg;
+				if(actionbar.menu === previous && previous !== undefined) actionbar.menu = arg;
+			}
+			else if(operation.action == 'registerTabs')
+			{
+				previous = actionbar.tab_templates[operation.args[1]];
+				actionbar.tab_templates[operation.args[1]] = arg;
+				if(actionbar.tabs === previous && previous !== undefined) actionbar.tabs = arg;
+			}
+			else if(operation.action == 'useMenu') actionbar.menu = actionbar.menu_templates[arg];
+			else if(operation.action == 'useTabs') actionbar.tabs = actionbar.tab_templates[arg];
+			else if(operation.action == 'pushState')
+			{
+				actionbar.states.push({ menu: actionbar.menu, tabs: actionbar.tabs, navigation_items: actionbar.navigation_items });
+			}
+			else if(operation.action == 'popState' && actionbar.states.length)
+			{
+				var state = actionbar.states.pop();
+				actionbar.menu = state.menu;
+				actionbar.tabs = state.tabs;
+				actionbar.navigation_items = state.navigation_items;
+			}
+		}
+	}
+
+	apply({});
+
+	return cordova.exec(
+		function(result)
+		{
+			if(result.errors.length)
+			{
+				// Replay what did happen from where the batch started
+				var failed = {};
+				for(var i = 0; i < result.errors.length; ++i) failed[result.errors[i].index] = true;
+
+				restore();
+				apply(failed);
+			}
+
+			callback(result.errors.length? result.errors : undefined, result.results);
+		},
+		function(e) { restore(); callback(e); },
+		'ActionBar', 'batch', [operations]);
+};
+
+// Register a menu or tab bar definition under an id, to be switched to later with useMenu/useTabs. The definition is
+// parsed and its icons loaded when it's registered, so switching only sends the id.
+// (In a batch the arguments are [definition, id].)
+ActionBar.prototype.registerMenu = function(id, menu, callback)
+{
+	callback = callback || function() {};
+
+	var actionbar = window.plugins.actionbar;
+	var old_menu = actionbar.menu_templates[id];
+	actionbar.menu_templates[id] = menu;
+	if(actionbar.menu === old_menu && old_menu !== undefined) actionbar.menu = menu;
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		function(e) { actionbar.menu_templates[id] = old_menu; callback(e); },
+		'ActionBar', 'registerMenu', [menu, id]);
+};
+
+ActionBar.prototype.useMenu = function(id, callback)
+{
+	callback = callback || function() {};
+
+	var actionbar = window.plugins.actionbar;
+	var old_menu = actionbar.menu;
+	actionbar.menu = actionbar.menu_templates[id];
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		function(e) { actionbar.menu = old_menu; callback(e); },
+		'ActionBar', 'useMenu', [id]);
+};
+
+ActionBar.prototype.registerTabs = function(id, tabs, callback)
+{
+	callback = callback || function() {};
+
+	var actionbar = window.plugins.actionbar;
+	var old_tabs = actionbar.tab_templates[id];
+	actionbar.tab_templates[id] = tabs;
+	if(actionbar.tabs === old_tabs && old_tabs !== undefined) actionbar.tabs = tabs;
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		function(e) { actionbar.tab_templates[id] = old_tabs; callback(e); },
+		'ActionBar', 'registerTabs', [tabs, id]);
+};
+
+ActionBar.prototype.useTabs = function(id, callback)
+{
+	callback = callback || function() {};
+
+	var actionbar = window.plugins.actionbar;
+	var old_tabs = actionbar.tabs;
+	actionbar.tabs = actionbar.tab_templates[id];
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		function(e) { actionbar.tabs = old_tabs; callback(e); },
+		'ActionBar', 'useTabs', [id]);
+};
+
+// Save the action bar's whole configuration (title, subtitle, display options, navigation mode and selection, menu, tabs
+// and list navigation), to be brought back by popState, e.g. when going back to the previous screen.
+ActionBar.prototype.pushState = function(callback)
+{
+	callback = callback || function() {};
+
+	var actionbar = window.plugins.actionbar;
+	actionbar.states.push({ menu: actionbar.menu, tabs: actionbar.tabs, navigation_items: actionbar.navigation_items });
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		function(e) { actionbar.states.pop(); callback(e); },
+		'ActionBar', 'pushState', []);
+};
+
+ActionBar.prototype.popState = function(callback)
+{
+	callback = callback || function() {};
+
+	var actionbar = window.plugins.actionbar;
+	var old = { menu: actionbar.menu, tabs: actionbar.tabs, navigation_items: actionbar.navigation_items };
+	var state = actionbar.states.pop();
+
+	if(state)
+	{
+		actionbar.menu = state.menu;
+		actionbar.tabs = state.tabs;
+		actionbar.navigation_items = state.navigation_items;
+	}
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		function(e)
+		{
+			if(state)
+			{
+				actionbar.states.push(state);
+				actionbar.menu = old.menu;
+				actionbar.tabs = old.tabs;
+				actionbar.navigation_items = old.navigation_items;
+			}
+
+			callback(e);
+		},
+		'ActionBar', 'popState', []);
+};
+
 ActionBar.prototype.clearMenu = function(callback)
 {
 	return this.setMenu([], callback);
@@ -139,6 +349,22 @@ ActionBar.prototype.setHomeCallback = function(callback)
 	window.plugins.actionbar.home_callback = callback;
 }
 
+// Receive a single { type: 'change', from, to } event per tab switch (from/to are tab indices, -1 for none) and
+// { type: 'reselect', index } when the selected tab is tapped again, instead of the tabs' own select/unselect/reselect.
+// Pass null to go back to the per-tab callbacks.
+ActionBar.prototype.setTabChangeCallback = function(tabChange, callback)
+{
+	callback = callback || function() {};
+
+	var old_callback = window.plugins.actionbar.tab_change_callback;
+	window.plugins.actionbar.tab_change_callback = tabChange;
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		function(e) { window.plugins.actionbar.tab_change_callback = old_callback; callback(e); },
+		'ActionBar', 'setTabChangeEvents', [!!tabChange]);
+};
+
 ActionBar.prototype.setDisplayShowHomeEnabled = function(showHome, callback)
 {
 	callback = callback || function() {};
@@ -285,5 +511,95 @@ ActionBar.prototype.getTitle = function(callback)
 		'ActionBar', 'getTitle', []);
 };
 
+ActionBar.prototype.getIconCacheStats = function(callback)
+{
+	return cordova.exec(
+		function(result) { callback(undefined, result.value); },
+		callback,
+		'ActionBar', 'getIconCacheStats', []);
+};
+
+// Load icons into the cache ahead of time (e.g. the next screen's), so they show up immediately when used.
+// priority is optional: icons on screen load at priority 0, prefetched ones default to -1 (after anything on screen).
+// callback(error, { loaded: count, failed: [uris] }) is called once every icon has loaded or failed.
+ActionBar.prototype.prefetchIcons = function(uris, priority, callback)
+{
+	if(typeof priority == 'function')
+	{
+		callback = priority;
+		priority = undefined;
+	}
+
+	callback = callback || function() {};
+
+	return cordova.exec(
+		function(result) { callback(undefined, result); },
+		callback,
+		'ActionBar', 'prefetchIcons', priority === undefined? [uris] : [uris, priority]);
+};
+
+ActionBar.prototype.setIconDiskCacheSize = function(bytes, callback)
+{
+	callback = callback || function() {};
+
+	return cordova.exec(
+		function() { callback(undefined); },
+		callback,
+		'ActionBar', 'setIconDiskCacheSize', [bytes]);
+};
+
+// Called with each event from the native side (see ActionBarPlugin.event_channel)
+ActionBar.prototype.dispatchEvent = function(event)
+{
+	var actionbar = window.plugins.actionbar;
+	var item;
+
+	if(event.type == 'menu')
+	{
+		var items = actionbar.menu;
+		for(var i = 0; i < event.path.length; ++i)
+		{
+			item = items && items[event.path[i]];
+			items = item && item.items;
+		}
+
+		if(item && item.click) item.click();
+	}
+	else if(event.type == 'tab')
+	{
+		if(event.event == 'change')
+		{
+			if(actionbar.tab_change_callback) actionbar.tab_change_callback({ type: 'change', from: event.from, to: event.to });
+			return;
+		}
+		else if(event.event == 'reselect' && actionbar.tab_change_callback)
+		{
+			actionbar.tab_change_callback({ type: 'reselect', index: event.index });
+			return;
+		}
+
+		item = actionbar.tabs && actionbar.tabs[event.index];
+		if(item && item[event.event]) item[event.event](item);
+	}
+	else if(event.type == 'navigation')
+	{
+		item = actionbar.navigation_items && actionbar.navigation_items[event.index];
+		if(item && item.click) item.click();
+	}
+	else if(event.type == 'home')
+	{
+		if(actionbar.home_callback) actionbar.home_callback();
+	}
+};
+
 if(!window.plugins) window.plugins = {};
-window.plugins.actionbar = new ActionBar();
\ No newline at end of file
+window.plugins.actionbar = new ActionBar();
+
+// Open the event channel, stays open for the life of the page
+document.addEventListener('deviceready', function()
+{
+	cordova.exec(
+		function(event) { window.plugins.actionbar.dispatchEvent(event); },
+		function() {},
+		'ActionBar', 'listen', []);
+}, false);
\ No newline at end of file
@@ -0,0 +1,27 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android;
+
+/** Shadow of the framework resource ids the plugin refers to. */
+public final class R
+{
+	public static final class layout
+	{
+		public static final int simple_spinner_item = 0x01090008;
+		public static final int simple_spinner_dropdown_item = 0x01090009;
+	}
+
+	public static final class attr
+	{
+		public static final int actionBarSize = 0x010102eb;
+		public static final int actionMenuTextColor = 0x010102ff;
+	}
+
+	public static final class id
+	{
+		public static final int home = 0x0102002c;
+	}
+}
@@ -0,0 +1,80 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.app;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.widget.SpinnerAdapter;
+
+/** Shadow of android.app.ActionBar, implemented for benchmarks by FakeActionBar. */
+public abstract class ActionBar
+{
+	public static final int NAVIGATION_MODE_STANDARD = 0;
+	public static final int NAVIGATION_MODE_LIST = 1;
+	public static final int NAVIGATION_MODE_TABS = 2;
+
+	public static final int DISPLAY_USE_LOGO = 1;
+	public static final int DISPLAY_SHOW_HOME = 2;
+	public static final int DISPLAY_HOME_AS_UP = 4;
+	public static final int DISPLAY_SHOW_TITLE = 8;
+	public static final int DISPLAY_SHOW_CUSTOM = 16;
+
+	public interface OnNavigationListener
+	{
+		boolean onNavigationItemSelected(int itemPosition, long itemId);
+	}
+
+	public interface TabListener
+	{
+		void onTabSelected(Tab tab, FragmentTransaction ft);
+		void onTabUnselected(Tab tab, FragmentTransaction ft);
+		void onTabReselected(Tab tab, FragmentTransaction ft);
+	}
+
+	public static abstract class Tab
+	{
+		public abstract int getPosition();
+		public abstract Drawable getIcon();
+		public abstract CharSequence getText();
+		public abstract Tab setIcon(Drawable icon);
+		public abstract Tab setText(CharSequence text);
+		public abstract Tab setTabListener(TabListener listener);
+		public abstract void select();
+	}
+
+	public abstract void show();
+	public abstract void hide();
+	public abstract boolean isShowing();
+	public abstract int getHeight();
+
+	public abstract int getDisplayOptions();
+	public abstract void setDisplayOptions(int options);
+	public abstract void setDisplayHomeAsUpEnabled(boolean showHomeAsUp);
+	public abstract void setDisplayShowHomeEnabled(boolean showHome);
+	public abstract void setDisplayShowTitleEnabled(boolean showTitle);
+	public abstract void setDisplayUseLogoEnabled(boolean useLogo);
+	public abstract void setHomeButtonEnabled(boolean enabled);
+
+	public abstract CharSequence getTitle();
+	public abstract void setTitle(CharSequence title);
+	public abstract CharSequence getSubtitle();
+	public abstract void setSubtitle(CharSequence subtitle);
+	public abstract void setIcon(Drawable icon);
+	public abstract void setLogo(Drawable logo);
+
+	public abstract int getNavigationMode();
+	public abstract void setNavigationMode(int mode);
+	public abstract int getNavigationItemCount();
+	public abstract int getSelectedNavigationIndex();
+	public abstract void setSelectedNavigationItem(int position);
+	public abstract void setListNavigationCallbacks(SpinnerAdapter adapter, OnNavigationListener callback);
+
+	public abstract Tab newTab();
+	public abstract void addTab(Tab tab);
+	public abstract void removeAllTabs();
+
+	public abstract Context getThemedContext();
+}
@@ -0,0 +1,79 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.app;
+
+import java.io.File;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Window;
+
+/** Shadow of android.app.Activity, the environment itself is provided by a subclass (see BenchActivity). */
+public class Activity extends Context
+{
+	private final Window window = new Window();
+
+	public ActionBar getActionBar()
+	{
+		return null;
+	}
+
+	public Window getWindow()
+	{
+		return window;
+	}
+
+	public void invalidateOptionsMenu()
+	{
+	}
+
+	/** Runs the action straight away on the main thread, otherwise queues it for the main looper. */
+	public final void runOnUiThread(Runnable action)
+	{
+		if(Looper.getMainLooper().getThread() == Thread.currentThread())
+		{
+			action.run();
+		}
+		else
+		{
+			new Handler(Looper.getMainLooper()).post(action);
+		}
+	}
+
+	@Override
+	public Resources getResources()
+	{
+		return null;
+	}
+
+	@Override
+	public Resources.Theme getTheme()
+	{
+		return null;
+	}
+
+	@Override
+	public AssetManager getAssets()
+	{
+		return null;
+	}
+
+	@Override
+	public ContentResolver getContentResolver()
+	{
+		return null;
+	}
+
+	@Override
+	public File getCacheDir()
+	{
+		return null;
+	}
+}
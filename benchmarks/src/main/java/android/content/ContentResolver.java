@@ -0,0 +1,26 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.content;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+import android.net.Uri;
+
+/** Shadow of android.content.ContentResolver, only file: URIs can be opened. */
+public class ContentResolver
+{
+	public final InputStream openInputStream(Uri uri) throws FileNotFoundException
+	{
+		if(!"file".equals(uri.getScheme()))
+		{
+			throw new FileNotFoundException("No content provider: " + uri);
+		}
+
+		return new FileInputStream(uri.getPath());
+	}
+}
@@ -0,0 +1,20 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.content;
+
+import java.io.File;
+
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+
+public abstract class Context
+{
+	public abstract Resources getResources();
+	public abstract Resources.Theme getTheme();
+	public abstract AssetManager getAssets();
+	public abstract ContentResolver getContentResolver();
+	public abstract File getCacheDir();
+}
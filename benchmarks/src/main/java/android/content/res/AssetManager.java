@@ -0,0 +1,55 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.content.res;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/** Shadow of android.content.res.AssetManager over an in-memory file tree (see add()). */
+public final class AssetManager
+{
+	private final Map<String, byte[]> files = new TreeMap<String, byte[]>();
+
+	/** Shadow only: add a file, path is relative to the assets root (e.g. "www/img/icon.png"). */
+	public synchronized void add(String path, byte[] data)
+	{
+		files.put(path, data);
+	}
+
+	public synchronized final InputStream open(String fileName) throws IOException
+	{
+		final byte[] data = files.get(fileName);
+		if(data == null)
+		{
+			throw new FileNotFoundException(fileName);
+		}
+
+		return new ByteArrayInputStream(data);
+	}
+
+	/** @return The names of the files and directories in a directory, empty if there's no such directory. */
+	public synchronized final String[] list(String path) throws IOException
+	{
+		final String prefix = path.length() > 0? path + "/" : "";
+		TreeSet<String> names = new TreeSet<String>();
+
+		for(String file: files.keySet())
+		{
+			if(file.startsWith(prefix))
+			{
+				final int slash = file.indexOf('/', prefix.length());
+				names.add(slash == -1? file.substring(prefix.length()) : file.substring(prefix.length(), slash));
+			}
+		}
+
+		return names.toArray(new String[names.size()]);
+	}
+}
@@ -0,0 +1,45 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.content.res;
+
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+/** Shadow of android.content.res.Resources, with display metrics and an empty theme. */
+public class Resources
+{
+	private final DisplayMetrics metrics;
+
+	/** Shadow only. */
+	public Resources(DisplayMetrics metrics)
+	{
+		this.metrics = metrics;
+	}
+
+	public DisplayMetrics getDisplayMetrics()
+	{
+		return metrics;
+	}
+
+	public final Theme newTheme()
+	{
+		return new Theme();
+	}
+
+	public final class Theme
+	{
+		/** No attributes are defined, callers fall back to their defaults. */
+		public boolean resolveAttribute(int resid, TypedValue outValue, boolean resolveRefs)
+		{
+			return false;
+		}
+
+		public TypedArray obtainStyledAttributes(int[] attrs)
+		{
+			return new TypedArray();
+		}
+	}
+}
@@ -0,0 +1,18 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.content.res;
+
+public class TypedArray
+{
+	public int getColor(int index, int defValue)
+	{
+		return defValue;
+	}
+
+	public void recycle()
+	{
+	}
+}
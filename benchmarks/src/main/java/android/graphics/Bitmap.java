@@ -0,0 +1,67 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+/** Shadow of android.graphics.Bitmap, dimensions only (no pixels). */
+public final class Bitmap
+{
+	public enum Config
+	{
+		ALPHA_8, RGB_565, ARGB_4444, ARGB_8888
+	}
+
+	private final int width;
+	private final int height;
+	private final Config config;
+	private int density = 160;
+
+	private Bitmap(int width, int height, Config config)
+	{
+		this.width = width;
+		this.height = height;
+		this.config = config;
+	}
+
+	public static Bitmap createBitmap(int width, int height, Config config)
+	{
+		if(width <= 0 || height <= 0)
+		{
+			throw new IllegalArgumentException("width and height must be > 0");
+		}
+
+		return new Bitmap(width, height, config);
+	}
+
+	public final int getWidth()
+	{
+		return width;
+	}
+
+	public final int getHeight()
+	{
+		return height;
+	}
+
+	public final int getRowBytes()
+	{
+		return width * (config == Config.ARGB_8888? 4 : config == Config.ALPHA_8? 1 : 2);
+	}
+
+	public final Config getConfig()
+	{
+		return config;
+	}
+
+	public int getDensity()
+	{
+		return density;
+	}
+
+	public void setDensity(int density)
+	{
+		this.density = density;
+	}
+}
@@ -0,0 +1,102 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Shadow of android.graphics.BitmapFactory that reads PNG headers: bounds, sampling and scaling behave as on Android, no pixels are decoded. */
+public class BitmapFactory
+{
+	public static class Options
+	{
+		public boolean inJustDecodeBounds;
+		public int inSampleSize;
+		public boolean inScaled = true;
+		public int inDensity;
+		public int inTargetDensity;
+		public Bitmap.Config inPreferredConfig = Bitmap.Config.ARGB_8888;
+		public int outWidth;
+		public int outHeight;
+	}
+
+	private static final byte[] PNG_SIGNATURE = { (byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+	public static Bitmap decodeStream(InputStream is, Rect outPadding, Options opts)
+	{
+		if(opts == null)
+		{
+			opts = new Options();
+		}
+
+		opts.outWidth = opts.outHeight = -1;
+
+		final byte[] data;
+		try
+		{
+			data = readAll(is);
+		}
+		catch (IOException e)
+		{
+			return null;
+		}
+
+		// Signature, then the IHDR chunk: length, type, width, height
+		if(data.length < 24)
+		{
+			return null;
+		}
+
+		for(int i = 0; i < PNG_SIGNATURE.length; ++i)
+		{
+			if(data[i] != PNG_SIGNATURE[i])
+			{
+				return null;
+			}
+		}
+
+		final int width = readInt(data, 16);
+		final int height = readInt(data, 20);
+		final int sample = Math.max(1, opts.inSampleSize);
+
+		int out_width = width / sample;
+		int out_height = height / sample;
+		if(opts.inScaled && opts.inDensity > 0 && opts.inTargetDensity > 0 && opts.inDensity != opts.inTargetDensity)
+		{
+			final float scale = opts.inTargetDensity / (float)opts.inDensity;
+			out_width = (int)(out_width * scale + 0.5f);
+			out_height = (int)(out_height * scale + 0.5f);
+		}
+
+		opts.outWidth = out_width;
+		opts.outHeight = out_height;
+
+		if(opts.inJustDecodeBounds || out_width <= 0 || out_height <= 0)
+		{
+			return null;
+		}
+
+		return Bitmap.createBitmap(out_width, out_height, opts.inPreferredConfig);
+	}
+
+	private static byte[] readAll(InputStream is) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for(int read; (read = is.read(buffer)) != -1;)
+		{
+			out.write(buffer, 0, read);
+		}
+
+		return out.toByteArray();
+	}
+
+	private static int readInt(byte[] data, int offset)
+	{
+		return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+	}
+}
@@ -0,0 +1,59 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+/** Shadow of android.graphics.Canvas, drawing is a no-op. */
+public class Canvas
+{
+	private int save_count = 1;
+
+	public Canvas()
+	{
+	}
+
+	public Canvas(Bitmap bitmap)
+	{
+	}
+
+	public int save()
+	{
+		return save_count++;
+	}
+
+	public void restore()
+	{
+		if(save_count <= 1)
+		{
+			throw new IllegalStateException("Underflow in restore");
+		}
+
+		--save_count;
+	}
+
+	public void concat(Matrix matrix)
+	{
+	}
+
+	public void scale(float sx, float sy)
+	{
+	}
+
+	public void translate(float dx, float dy)
+	{
+	}
+
+	public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint)
+	{
+	}
+
+	public void drawPath(Path path, Paint paint)
+	{
+	}
+
+	public void drawText(String text, float x, float y, Paint paint)
+	{
+	}
+}
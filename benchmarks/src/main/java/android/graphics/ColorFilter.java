@@ -0,0 +1,10 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+public class ColorFilter
+{
+}
@@ -0,0 +1,70 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+/** Shadow of android.graphics.Matrix, transforms aren't tracked. */
+public class Matrix
+{
+	public Matrix()
+	{
+	}
+
+	public Matrix(Matrix src)
+	{
+	}
+
+	public void reset()
+	{
+	}
+
+	public void setValues(float[] values)
+	{
+	}
+
+	public void setScale(float sx, float sy)
+	{
+	}
+
+	public boolean preConcat(Matrix other)
+	{
+		return true;
+	}
+
+	public boolean postConcat(Matrix other)
+	{
+		return true;
+	}
+
+	public boolean preTranslate(float dx, float dy)
+	{
+		return true;
+	}
+
+	public boolean postTranslate(float dx, float dy)
+	{
+		return true;
+	}
+
+	public boolean preScale(float sx, float sy)
+	{
+		return true;
+	}
+
+	public boolean preRotate(float degrees)
+	{
+		return true;
+	}
+
+	public boolean preRotate(float degrees, float px, float py)
+	{
+		return true;
+	}
+
+	public boolean preSkew(float kx, float ky)
+	{
+		return true;
+	}
+}
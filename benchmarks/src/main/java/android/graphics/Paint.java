@@ -0,0 +1,91 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+/** Shadow of android.graphics.Paint, text is measured as square glyphs of the text size. */
+public class Paint
+{
+	public static final int ANTI_ALIAS_FLAG = 1;
+	public static final int FILTER_BITMAP_FLAG = 2;
+
+	public enum Style
+	{
+		FILL, STROKE, FILL_AND_STROKE
+	}
+
+	public enum Cap
+	{
+		BUTT, ROUND, SQUARE
+	}
+
+	public enum Join
+	{
+		MITER, ROUND, BEVEL
+	}
+
+	private float text_size = 12;
+
+	public Paint()
+	{
+	}
+
+	public Paint(int flags)
+	{
+	}
+
+	public void setAntiAlias(boolean aa)
+	{
+	}
+
+	public void setFilterBitmap(boolean filter)
+	{
+	}
+
+	public void setColor(int color)
+	{
+	}
+
+	public void setAlpha(int a)
+	{
+	}
+
+	public ColorFilter setColorFilter(ColorFilter filter)
+	{
+		return filter;
+	}
+
+	public void setStyle(Style style)
+	{
+	}
+
+	public void setStrokeWidth(float width)
+	{
+	}
+
+	public void setStrokeCap(Cap cap)
+	{
+	}
+
+	public void setStrokeJoin(Join join)
+	{
+	}
+
+	public Typeface setTypeface(Typeface typeface)
+	{
+		return typeface;
+	}
+
+	public void setTextSize(float textSize)
+	{
+		text_size = textSize;
+	}
+
+	public void getTextBounds(String text, int start, int end, Rect bounds)
+	{
+		final int size = Math.round(text_size);
+		bounds.set(0, -size, size * (end - start), 0);
+	}
+}
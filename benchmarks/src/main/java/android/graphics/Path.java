@@ -0,0 +1,68 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+/** Shadow of android.graphics.Path, the outline isn't kept. */
+public class Path
+{
+	public enum Direction
+	{
+		CW, CCW
+	}
+
+	public enum FillType
+	{
+		WINDING, EVEN_ODD
+	}
+
+	public void setFillType(FillType ft)
+	{
+	}
+
+	public void moveTo(float x, float y)
+	{
+	}
+
+	public void lineTo(float x, float y)
+	{
+	}
+
+	public void quadTo(float x1, float y1, float x2, float y2)
+	{
+	}
+
+	public void cubicTo(float x1, float y1, float x2, float y2, float x3, float y3)
+	{
+	}
+
+	public void close()
+	{
+	}
+
+	public void addRect(float left, float top, float right, float bottom, Direction dir)
+	{
+	}
+
+	public void addCircle(float x, float y, float radius, Direction dir)
+	{
+	}
+
+	public void addOval(RectF oval, Direction dir)
+	{
+	}
+
+	public void addRoundRect(RectF rect, float rx, float ry, Direction dir)
+	{
+	}
+
+	public void addPath(Path src)
+	{
+	}
+
+	public void transform(Matrix matrix)
+	{
+	}
+}
@@ -0,0 +1,14 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+public class PixelFormat
+{
+	public static final int UNKNOWN = 0;
+	public static final int TRANSLUCENT = -3;
+	public static final int TRANSPARENT = -2;
+	public static final int OPAQUE = -1;
+}
@@ -0,0 +1,41 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+public final class Rect
+{
+	public int left;
+	public int top;
+	public int right;
+	public int bottom;
+
+	public Rect()
+	{
+	}
+
+	public Rect(int left, int top, int right, int bottom)
+	{
+		set(left, top, right, bottom);
+	}
+
+	public void set(int left, int top, int right, int bottom)
+	{
+		this.left = left;
+		this.top = top;
+		this.right = right;
+		this.bottom = bottom;
+	}
+
+	public final int width()
+	{
+		return right - left;
+	}
+
+	public final int height()
+	{
+		return bottom - top;
+	}
+}
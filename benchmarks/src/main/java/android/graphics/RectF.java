@@ -0,0 +1,26 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+public class RectF
+{
+	public float left;
+	public float top;
+	public float right;
+	public float bottom;
+
+	public RectF()
+	{
+	}
+
+	public RectF(float left, float top, float right, float bottom)
+	{
+		this.left = left;
+		this.top = top;
+		this.right = right;
+		this.bottom = bottom;
+	}
+}
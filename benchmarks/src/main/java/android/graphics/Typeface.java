@@ -0,0 +1,24 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics;
+
+import java.io.File;
+
+import android.content.res.AssetManager;
+
+/** Shadow of android.graphics.Typeface, fonts aren't read. */
+public class Typeface
+{
+	public static Typeface createFromAsset(AssetManager mgr, String path)
+	{
+		return new Typeface();
+	}
+
+	public static Typeface createFromFile(File path)
+	{
+		return new Typeface();
+	}
+}
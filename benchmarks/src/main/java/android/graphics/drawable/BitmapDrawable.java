@@ -0,0 +1,79 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics.drawable;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+
+public class BitmapDrawable extends Drawable
+{
+	private final Bitmap bitmap;
+
+	public BitmapDrawable(Resources res, Bitmap bitmap)
+	{
+		this.bitmap = bitmap;
+	}
+
+	public final Bitmap getBitmap()
+	{
+		return bitmap;
+	}
+
+	@Override
+	public ConstantState getConstantState()
+	{
+		return new ConstantState()
+		{
+			@Override
+			public Drawable newDrawable()
+			{
+				return new BitmapDrawable(null, bitmap);
+			}
+
+			@Override
+			public int getChangingConfigurations()
+			{
+				return 0;
+			}
+		};
+	}
+
+	@Override
+	public void draw(Canvas canvas)
+	{
+	}
+
+	@Override
+	public void setAlpha(int alpha)
+	{
+	}
+
+	@Override
+	public void setColorFilter(ColorFilter cf)
+	{
+	}
+
+	@Override
+	public int getOpacity()
+	{
+		return PixelFormat.TRANSLUCENT;
+	}
+
+	@Override
+	public int getIntrinsicWidth()
+	{
+		return bitmap.getWidth();
+	}
+
+	@Override
+	public int getIntrinsicHeight()
+	{
+		return bitmap.getHeight();
+	}
+}
@@ -0,0 +1,62 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.graphics.drawable;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Rect;
+
+public abstract class Drawable
+{
+	public static abstract class ConstantState
+	{
+		public abstract Drawable newDrawable();
+
+		public Drawable newDrawable(Resources res)
+		{
+			return newDrawable();
+		}
+
+		public abstract int getChangingConfigurations();
+	}
+
+	private final Rect bounds = new Rect();
+
+	public abstract void draw(Canvas canvas);
+	public abstract void setAlpha(int alpha);
+	public abstract void setColorFilter(ColorFilter cf);
+	public abstract int getOpacity();
+
+	public void setBounds(int left, int top, int right, int bottom)
+	{
+		bounds.set(left, top, right, bottom);
+	}
+
+	public final Rect getBounds()
+	{
+		return bounds;
+	}
+
+	public int getIntrinsicWidth()
+	{
+		return -1;
+	}
+
+	public int getIntrinsicHeight()
+	{
+		return -1;
+	}
+
+	public void invalidateSelf()
+	{
+	}
+
+	public ConstantState getConstantState()
+	{
+		return null;
+	}
+}
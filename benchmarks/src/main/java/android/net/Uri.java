@@ -0,0 +1,83 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.net;
+
+/** Shadow of android.net.Uri for hierarchical URIs (scheme://authority/path?query#fragment). */
+public abstract class Uri
+{
+	public static Uri parse(String uriString)
+	{
+		return new StringUri(uriString);
+	}
+
+	public abstract String getScheme();
+	public abstract String getPath();
+
+	public boolean isAbsolute()
+	{
+		return getScheme() != null;
+	}
+
+	private static class StringUri extends Uri
+	{
+		private final String uri;
+
+		StringUri(String uri)
+		{
+			this.uri = uri;
+		}
+
+		// As on Android, a scheme is anything before the first ':' that comes before any '/', '?' or '#'
+		@Override
+		public String getScheme()
+		{
+			for(int i = 0; i < uri.length(); ++i)
+			{
+				final char c = uri.charAt(i);
+				if(c == ':')
+				{
+					return i > 0? uri.substring(0, i) : null;
+				}
+				else if(c == '/' || c == '?' || c == '#')
+				{
+					return null;
+				}
+			}
+
+			return null;
+		}
+
+		@Override
+		public String getPath()
+		{
+			final String scheme = getScheme();
+			String rest = scheme == null? uri : uri.substring(scheme.length() + 1);
+
+			if(rest.startsWith("//"))
+			{
+				final int slash = rest.indexOf('/', 2);
+				rest = slash == -1? "" : rest.substring(slash);
+			}
+
+			for(char end: new char[] { '#', '?' })
+			{
+				final int index = rest.indexOf(end);
+				if(index != -1)
+				{
+					rest = rest.substring(0, index);
+				}
+			}
+
+			return rest;
+		}
+
+		@Override
+		public String toString()
+		{
+			return uri;
+		}
+	}
+}
@@ -0,0 +1,20 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.os;
+
+public class Build
+{
+	public static class VERSION
+	{
+		public static final int SDK_INT = VERSION_CODES.ICE_CREAM_SANDWICH;
+	}
+
+	public static class VERSION_CODES
+	{
+		public static final int HONEYCOMB = 11;
+		public static final int ICE_CREAM_SANDWICH = 14;
+	}
+}
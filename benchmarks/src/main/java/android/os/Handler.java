@@ -0,0 +1,34 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.os;
+
+/** Shadow of android.os.Handler, messages are queued on the looper until it runs them (see Looper.runPending()). */
+public class Handler
+{
+	private final Looper looper;
+
+	public Handler(Looper looper)
+	{
+		this.looper = looper;
+	}
+
+	public final boolean post(Runnable r)
+	{
+		looper.enqueue(r);
+		return true;
+	}
+
+	public final boolean postDelayed(Runnable r, long delayMillis)
+	{
+		looper.enqueue(r);
+		return true;
+	}
+
+	public final void removeCallbacks(Runnable r)
+	{
+		looper.remove(r);
+	}
+}
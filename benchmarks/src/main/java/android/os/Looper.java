@@ -0,0 +1,62 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.os;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/** Shadow of android.os.Looper. There's only the main looper, its thread is whichever called prepareMainLooper() and it only
+ * runs its queue when asked to (runPending()).
+ */
+public final class Looper
+{
+	private static final Looper main = new Looper();
+
+	private volatile Thread thread = null;
+	private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+
+	private Looper()
+	{
+	}
+
+	/** Make the calling thread the main (UI) thread. */
+	public static void prepareMainLooper()
+	{
+		main.thread = Thread.currentThread();
+		main.queue.clear();
+	}
+
+	public static Looper getMainLooper()
+	{
+		return main;
+	}
+
+	public Thread getThread()
+	{
+		return thread;
+	}
+
+	/** Shadow only: run everything queued so far, on the calling thread. @return The number of messages run. */
+	public int runPending()
+	{
+		int count = 0;
+		for(Runnable r; (r = queue.poll()) != null; ++count)
+		{
+			r.run();
+		}
+
+		return count;
+	}
+
+	void enqueue(Runnable r)
+	{
+		queue.add(r);
+	}
+
+	void remove(Runnable r)
+	{
+		queue.remove(r);
+	}
+}
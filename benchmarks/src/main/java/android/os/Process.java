@@ -0,0 +1,15 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.os;
+
+public class Process
+{
+	public static final int THREAD_PRIORITY_BACKGROUND = 10;
+
+	public static final void setThreadPriority(int priority)
+	{
+	}
+}
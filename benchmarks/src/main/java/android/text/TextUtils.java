@@ -0,0 +1,14 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.text;
+
+public class TextUtils
+{
+	public enum TruncateAt
+	{
+		START, MIDDLE, END, MARQUEE
+	}
+}
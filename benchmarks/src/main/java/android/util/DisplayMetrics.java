@@ -0,0 +1,17 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.util;
+
+public class DisplayMetrics
+{
+	public static final int DENSITY_DEFAULT = 160;
+
+	public float density = 1;
+	public int densityDpi = DENSITY_DEFAULT;
+	public float scaledDensity = 1;
+	public int widthPixels;
+	public int heightPixels;
+}
@@ -0,0 +1,101 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/** Shadow of android.util.JsonReader, backed by Gson's reader (which Android's was derived from, with the same API). */
+public final class JsonReader implements Closeable
+{
+	private final com.google.gson.stream.JsonReader reader;
+
+	public JsonReader(Reader in)
+	{
+		reader = new com.google.gson.stream.JsonReader(in);
+	}
+
+	public void setLenient(boolean lenient)
+	{
+		reader.setLenient(lenient);
+	}
+
+	public void beginArray() throws IOException
+	{
+		reader.beginArray();
+	}
+
+	public void endArray() throws IOException
+	{
+		reader.endArray();
+	}
+
+	public void beginObject() throws IOException
+	{
+		reader.beginObject();
+	}
+
+	public void endObject() throws IOException
+	{
+		reader.endObject();
+	}
+
+	public boolean hasNext() throws IOException
+	{
+		return reader.hasNext();
+	}
+
+	public JsonToken peek() throws IOException
+	{
+		return JsonToken.valueOf(reader.peek().name());
+	}
+
+	public String nextName() throws IOException
+	{
+		return reader.nextName();
+	}
+
+	public String nextString() throws IOException
+	{
+		return reader.nextString();
+	}
+
+	public boolean nextBoolean() throws IOException
+	{
+		return reader.nextBoolean();
+	}
+
+	public void nextNull() throws IOException
+	{
+		reader.nextNull();
+	}
+
+	public double nextDouble() throws IOException
+	{
+		return reader.nextDouble();
+	}
+
+	public long nextLong() throws IOException
+	{
+		return reader.nextLong();
+	}
+
+	public int nextInt() throws IOException
+	{
+		return reader.nextInt();
+	}
+
+	public void skipValue() throws IOException
+	{
+		reader.skipValue();
+	}
+
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
@@ -0,0 +1,179 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Shadow of android.util.LruCache, with the same semantics (sizes, eviction and statistics). */
+public class LruCache<K, V>
+{
+	private final LinkedHashMap<K, V> map;
+	private int size;
+	private int max_size;
+	private int hit_count;
+	private int miss_count;
+
+	public LruCache(int maxSize)
+	{
+		if(maxSize <= 0)
+		{
+			throw new IllegalArgumentException("maxSize <= 0");
+		}
+
+		max_size = maxSize;
+		map = new LinkedHashMap<K, V>(0, 0.75f, true);
+	}
+
+	public final V get(K key)
+	{
+		if(key == null)
+		{
+			throw new NullPointerException("key == null");
+		}
+
+		synchronized(this)
+		{
+			final V value = map.get(key);
+			if(value != null)
+			{
+				++hit_count;
+			}
+			else
+			{
+				++miss_count;
+			}
+
+			return value;
+		}
+	}
+
+	public final V put(K key, V value)
+	{
+		if(key == null || value == null)
+		{
+			throw new NullPointerException("key == null || value == null");
+		}
+
+		V previous;
+		synchronized(this)
+		{
+			size += safeSizeOf(key, value);
+			previous = map.put(key, value);
+			if(previous != null)
+			{
+				size -= safeSizeOf(key, previous);
+			}
+		}
+
+		if(previous != null)
+		{
+			entryRemoved(false, key, previous, value);
+		}
+
+		trimToSize(max_size);
+		return previous;
+	}
+
+	public final V remove(K key)
+	{
+		if(key == null)
+		{
+			throw new NullPointerException("key == null");
+		}
+
+		V previous;
+		synchronized(this)
+		{
+			previous = map.remove(key);
+			if(previous != null)
+			{
+				size -= safeSizeOf(key, previous);
+			}
+		}
+
+		if(previous != null)
+		{
+			entryRemoved(false, key, previous, null);
+		}
+
+		return previous;
+	}
+
+	public void trimToSize(int maxSize)
+	{
+		while(true)
+		{
+			K key;
+			V value;
+			synchronized(this)
+			{
+				if(size <= maxSize || map.isEmpty())
+				{
+					break;
+				}
+
+				Map.Entry<K, V> eldest = map.entrySet().iterator().next();
+				key = eldest.getKey();
+				value = eldest.getValue();
+				map.remove(key);
+				size -= safeSizeOf(key, value);
+			}
+
+			entryRemoved(true, key, value, null);
+		}
+	}
+
+	public final void evictAll()
+	{
+		trimToSize(-1);
+	}
+
+	protected void entryRemoved(boolean evicted, K key, V oldValue, V newValue)
+	{
+	}
+
+	protected int sizeOf(K key, V value)
+	{
+		return 1;
+	}
+
+	private int safeSizeOf(K key, V value)
+	{
+		final int result = sizeOf(key, value);
+		if(result < 0)
+		{
+			throw new IllegalStateException("Negative size: " + key + "=" + value);
+		}
+
+		return result;
+	}
+
+	public synchronized final int size()
+	{
+		return size;
+	}
+
+	public synchronized final int maxSize()
+	{
+		return max_size;
+	}
+
+	public synchronized final int hitCount()
+	{
+		return hit_count;
+	}
+
+	public synchronized final int missCount()
+	{
+		return miss_count;
+	}
+
+	public synchronized final Map<K, V> snapshot()
+	{
+		return new LinkedHashMap<K, V>(map);
+	}
+}
@@ -0,0 +1,98 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.util;
+
+import java.util.Arrays;
+
+/** Shadow of android.util.SparseArray: sorted int keys, binary searched. */
+public class SparseArray<E>
+{
+	private int[] keys;
+	private Object[] values;
+	private int size = 0;
+
+	public SparseArray()
+	{
+		this(10);
+	}
+
+	public SparseArray(int initialCapacity)
+	{
+		keys = new int[Math.max(1, initialCapacity)];
+		values = new Object[keys.length];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E get(int key)
+	{
+		final int i = Arrays.binarySearch(keys, 0, size, key);
+		return i < 0? null : (E)values[i];
+	}
+
+	public void put(int key, E value)
+	{
+		int i = Arrays.binarySearch(keys, 0, size, key);
+		if(i >= 0)
+		{
+			values[i] = value;
+			return;
+		}
+
+		i = ~i;
+		grow();
+		System.arraycopy(keys, i, keys, i + 1, size - i);
+		System.arraycopy(values, i, values, i + 1, size - i);
+		keys[i] = key;
+		values[i] = value;
+		++size;
+	}
+
+	/** Puts a key that's larger than every key already present, without searching. */
+	public void append(int key, E value)
+	{
+		if(size > 0 && key <= keys[size - 1])
+		{
+			put(key, value);
+			return;
+		}
+
+		grow();
+		keys[size] = key;
+		values[size] = value;
+		++size;
+	}
+
+	public void remove(int key)
+	{
+		final int i = Arrays.binarySearch(keys, 0, size, key);
+		if(i >= 0)
+		{
+			System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+			System.arraycopy(values, i + 1, values, i, size - i - 1);
+			values[--size] = null;
+		}
+	}
+
+	public void clear()
+	{
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	private void grow()
+	{
+		if(size == keys.length)
+		{
+			keys = Arrays.copyOf(keys, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+	}
+}
@@ -0,0 +1,31 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.util;
+
+public class TypedValue
+{
+	public static final int COMPLEX_UNIT_PX = 0;
+	public static final int COMPLEX_UNIT_DIP = 1;
+	public static final int COMPLEX_UNIT_SP = 2;
+
+	public int data;
+
+	public static float applyDimension(int unit, float value, DisplayMetrics metrics)
+	{
+		switch(unit)
+		{
+			case COMPLEX_UNIT_DIP: return value * metrics.density;
+			case COMPLEX_UNIT_SP: return value * metrics.scaledDensity;
+			default: return value;
+		}
+	}
+
+	/** data is taken to be a dp value (real complex values are packed with their unit). */
+	public static int complexToDimensionPixelSize(int data, DisplayMetrics metrics)
+	{
+		return Math.round(applyDimension(COMPLEX_UNIT_DIP, data, metrics));
+	}
+}
@@ -0,0 +1,18 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.util;
+
+import org.kxml2.io.KXmlParser;
+import org.xmlpull.v1.XmlPullParser;
+
+public class Xml
+{
+	/** @return A non-validating, namespace unaware parser, like Android's (which is also kXML). */
+	public static XmlPullParser newPullParser()
+	{
+		return new KXmlParser();
+	}
+}
@@ -0,0 +1,41 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.view;
+
+import android.content.Context;
+import android.widget.TextView;
+
+/** Shadow of android.view.LayoutInflater, every layout inflates to a TextView (which is all the plugin inflates). */
+public class LayoutInflater
+{
+	private final Context context;
+
+	private LayoutInflater(Context context)
+	{
+		this.context = context;
+	}
+
+	public static LayoutInflater from(Context context)
+	{
+		return new LayoutInflater(context);
+	}
+
+	public Context getContext()
+	{
+		return context;
+	}
+
+	public View inflate(int resource, ViewGroup root, boolean attachToRoot)
+	{
+		TextView view = new TextView(context);
+		if(root != null && attachToRoot)
+		{
+			root.addView(view);
+		}
+
+		return view;
+	}
+}
@@ -0,0 +1,16 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.view;
+
+public interface Menu
+{
+	MenuItem add(int groupId, int itemId, int order, CharSequence title);
+	SubMenu addSubMenu(int groupId, int itemId, int order, CharSequence title);
+	void removeItem(int id);
+	MenuItem findItem(int id);
+	void clear();
+	int size();
+}
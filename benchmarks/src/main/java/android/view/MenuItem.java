@@ -0,0 +1,27 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.view;
+
+import android.graphics.drawable.Drawable;
+
+public interface MenuItem
+{
+	int SHOW_AS_ACTION_NEVER = 0;
+	int SHOW_AS_ACTION_IF_ROOM = 1;
+	int SHOW_AS_ACTION_ALWAYS = 2;
+	int SHOW_AS_ACTION_WITH_TEXT = 4;
+
+	int getItemId();
+	int getOrder();
+	CharSequence getTitle();
+	MenuItem setTitle(CharSequence title);
+	MenuItem setTitleCondensed(CharSequence title);
+	Drawable getIcon();
+	MenuItem setIcon(Drawable icon);
+	void setShowAsAction(int actionEnum);
+	boolean hasSubMenu();
+	SubMenu getSubMenu();
+}
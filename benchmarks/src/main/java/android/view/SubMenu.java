@@ -0,0 +1,17 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.view;
+
+import android.graphics.drawable.Drawable;
+
+public interface SubMenu extends Menu
+{
+	SubMenu setHeaderTitle(CharSequence title);
+	SubMenu setHeaderIcon(Drawable icon);
+	void clearHeader();
+	SubMenu setIcon(Drawable icon);
+	MenuItem getItem();
+}
@@ -0,0 +1,49 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.view;
+
+import android.content.Context;
+
+public class View
+{
+	private final Context context;
+	private ViewGroup.LayoutParams layout_params = null;
+	private ViewGroup parent = null;
+
+	public View(Context context)
+	{
+		this.context = context;
+	}
+
+	public final Context getContext()
+	{
+		return context;
+	}
+
+	public void setPadding(int left, int top, int right, int bottom)
+	{
+	}
+
+	public ViewGroup.LayoutParams getLayoutParams()
+	{
+		return layout_params;
+	}
+
+	public void setLayoutParams(ViewGroup.LayoutParams params)
+	{
+		layout_params = params;
+	}
+
+	public final ViewGroup getParent()
+	{
+		return parent;
+	}
+
+	void setParent(ViewGroup parent)
+	{
+		this.parent = parent;
+	}
+}
@@ -0,0 +1,66 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.view;
+
+import java.util.ArrayList;
+
+import android.content.Context;
+
+public abstract class ViewGroup extends View
+{
+	public static class LayoutParams
+	{
+		public static final int MATCH_PARENT = -1;
+		public static final int WRAP_CONTENT = -2;
+
+		public int width;
+		public int height;
+
+		public LayoutParams(int width, int height)
+		{
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+	private final ArrayList<View> children = new ArrayList<View>();
+
+	public ViewGroup(Context context)
+	{
+		super(context);
+	}
+
+	public void addView(View child)
+	{
+		addView(child, child.getLayoutParams());
+	}
+
+	public void addView(View child, LayoutParams params)
+	{
+		if(child.getParent() != null)
+		{
+			throw new IllegalStateException("The specified child already has a parent.");
+		}
+
+		if(params != null)
+		{
+			child.setLayoutParams(params);
+		}
+
+		child.setParent(this);
+		children.add(child);
+	}
+
+	public int getChildCount()
+	{
+		return children.size();
+	}
+
+	public View getChildAt(int index)
+	{
+		return children.get(index);
+	}
+}
@@ -0,0 +1,17 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.view;
+
+/** Shadow of android.view.Window, with the action bar feature enabled. */
+public class Window
+{
+	public static final int FEATURE_ACTION_BAR = 8;
+
+	public boolean hasFeature(int feature)
+	{
+		return feature == FEATURE_ACTION_BAR;
+	}
+}
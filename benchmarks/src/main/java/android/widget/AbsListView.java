@@ -0,0 +1,25 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.widget;
+
+import android.content.Context;
+import android.view.ViewGroup;
+
+public abstract class AbsListView extends ViewGroup
+{
+	public static class LayoutParams extends ViewGroup.LayoutParams
+	{
+		public LayoutParams(int width, int height)
+		{
+			super(width, height);
+		}
+	}
+
+	public AbsListView(Context context)
+	{
+		super(context);
+	}
+}
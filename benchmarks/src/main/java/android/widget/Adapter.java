@@ -0,0 +1,17 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+public interface Adapter
+{
+	int getCount();
+	Object getItem(int position);
+	long getItemId(int position);
+	View getView(int position, View convertView, ViewGroup parent);
+}
@@ -0,0 +1,21 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+public abstract class BaseAdapter implements ListAdapter, SpinnerAdapter
+{
+	public void notifyDataSetChanged()
+	{
+	}
+
+	public View getDropDownView(int position, View convertView, ViewGroup parent)
+	{
+		return getView(position, convertView, parent);
+	}
+}
@@ -0,0 +1,30 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.widget;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+public class ImageView extends View
+{
+	private Drawable drawable = null;
+
+	public ImageView(Context context)
+	{
+		super(context);
+	}
+
+	public Drawable getDrawable()
+	{
+		return drawable;
+	}
+
+	public void setImageDrawable(Drawable drawable)
+	{
+		this.drawable = drawable;
+	}
+}
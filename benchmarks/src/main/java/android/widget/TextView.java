@@ -0,0 +1,29 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package android.widget;
+
+import android.content.Context;
+import android.view.View;
+
+public class TextView extends View
+{
+	private CharSequence text = "";
+
+	public TextView(Context context)
+	{
+		super(context);
+	}
+
+	public CharSequence getText()
+	{
+		return text;
+	}
+
+	public final void setText(CharSequence text)
+	{
+		this.text = text == null? "" : text;
+	}
+}
@@ -0,0 +1,117 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**! Finding the handler for an action name: the original List.contains check and if/else chains against the action table.
+ *
+ * legacy() reproduces the lookup execute() did before the table, in the same order: a contains() over the list of action names,
+ * then the getter chain and, for anything else, the UI thread chain. table() is a lookup in the plugin's own action table.
+ * Names arrive from the bridge as new strings, so each call starts from a fresh copy (no cached hash, no identity match).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionLookupBenchmark
+{
+	// A getter, the first and the last of the UI thread chain, and an action that doesn't exist
+	@Param({ "getTitle", "show", "setTitle", "noSuchAction" })
+	String action;
+
+	char[] name;
+	HashMap<String, ?> table;
+
+	private final static List<String> plugin_actions = Arrays.asList(new String[] {
+		"isAvailable",
+		"show", "hide", "isShowing", "getHeight",
+		"setMenu", "setTabs",
+		"setDisplayOptions", "getDisplayOptions",
+		"setHomeButtonEnabled", "setIcon", "setListNavigation", "setLogo",
+		"setDisplayShowHomeEnabled", "setDisplayHomeAsUpEnabled", "setDisplayShowTitleEnabled", "setDisplayUseLogoEnabled",
+		"setNavigationMode", "getNavigationMode", "setSelectedNavigationItem", "getSelectedNavigationItem",
+		"setTitle", "getTitle", "setSubtitle", "getSubtitle"
+	});
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() throws ReflectiveOperationException
+	{
+		name = action.toCharArray();
+
+		Field field = ActionBarPlugin.class.getDeclaredField("actions");
+		field.setAccessible(true);
+		table = (HashMap<String, ?>)field.get(new ActionBarPlugin());
+	}
+
+	@Benchmark
+	public Object table()
+	{
+		return table.get(new String(name));
+	}
+
+	/** @return The branch taken, -1 for an unknown action. */
+	@Benchmark
+	public int legacy()
+	{
+		final String action = new String(name);
+
+		if(!plugin_actions.contains(action))
+		{
+			return -1;
+		}
+
+		if("isAvailable".equals(action)) return 0;
+
+		if("isShowing".equals(action)) return 1;
+		else if("getHeight".equals(action)) return 2;
+		else if("getDisplayOptions".equals(action)) return 3;
+		else if("getNavigationMode".equals(action)) return 4;
+		else if("getSelectedNavigationItem".equals(action)) return 5;
+		else if("getSubtitle".equals(action)) return 6;
+		else if("getTitle".equals(action)) return 7;
+
+		// Inside the UI thread runnable
+		if("show".equals(action)) return 8;
+		else if("hide".equals(action)) return 9;
+		else if("setMenu".equals(action)) return 10;
+		else if("setTabs".equals(action)) return 11;
+		else if("setDisplayHomeAsUpEnabled".equals(action)) return 12;
+		else if("setDisplayOptions".equals(action)) return 13;
+		else if("setDisplayShowHomeEnabled".equals(action)) return 14;
+		else if("setDisplayShowTitleEnabled".equals(action)) return 15;
+		else if("setDisplayUseLogoEnabled".equals(action)) return 16;
+		else if("setHomeButtonEnabled".equals(action)) return 17;
+		else if("setIcon".equals(action)) return 18;
+		else if("setListNavigation".equals(action)) return 19;
+		else if("setLogo".equals(action)) return 20;
+		else if("setNavigationMode".equals(action)) return 21;
+		else if("setSelectedNavigationItem".equals(action)) return 22;
+		else if("setSubtitle".equals(action)) return 23;
+		else if("setTitle".equals(action)) return 24;
+
+		return -1;
+	}
+}
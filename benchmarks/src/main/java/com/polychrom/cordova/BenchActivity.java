@@ -0,0 +1,132 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.cordova.api.CordovaInterface;
+
+import android.app.ActionBar;
+import android.app.Activity;
+import android.content.ContentResolver;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+
+/** The activity Cordova runs in: an xhdpi display, in-memory assets, a temporary cache directory and a FakeActionBar. */
+class BenchActivity extends Activity implements CordovaInterface
+{
+	final AssetManager assets = new AssetManager();
+	final FakeActionBar action_bar = new FakeActionBar(this);
+	final File cache_dir;
+	int invalidated_menus = 0;
+
+	private final Resources resources;
+	private final Resources.Theme theme;
+	private final ContentResolver content_resolver = new ContentResolver();
+
+	private final ExecutorService thread_pool = Executors.newCachedThreadPool(new ThreadFactory()
+	{
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "Cordova pool");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	BenchActivity() throws IOException
+	{
+		DisplayMetrics metrics = new DisplayMetrics();
+		metrics.density = metrics.scaledDensity = 2;
+		metrics.densityDpi = 320;
+		metrics.widthPixels = 720;
+		metrics.heightPixels = 1280;
+
+		resources = new Resources(metrics);
+		theme = resources.newTheme();
+
+		cache_dir = File.createTempFile("actionbar-bench", "");
+		cache_dir.delete();
+		cache_dir.mkdirs();
+	}
+
+	void shutdown()
+	{
+		thread_pool.shutdownNow();
+		delete(cache_dir);
+	}
+
+	private static void delete(File file)
+	{
+		File[] children = file.listFiles();
+		if(children != null)
+		{
+			for(File child: children)
+			{
+				delete(child);
+			}
+		}
+
+		file.delete();
+	}
+
+	@Override
+	public ActionBar getActionBar()
+	{
+		return action_bar;
+	}
+
+	@Override
+	public void invalidateOptionsMenu()
+	{
+		++invalidated_menus;
+	}
+
+	@Override
+	public Resources getResources()
+	{
+		return resources;
+	}
+
+	@Override
+	public Resources.Theme getTheme()
+	{
+		return theme;
+	}
+
+	@Override
+	public AssetManager getAssets()
+	{
+		return assets;
+	}
+
+	@Override
+	public ContentResolver getContentResolver()
+	{
+		return content_resolver;
+	}
+
+	@Override
+	public File getCacheDir()
+	{
+		return cache_dir;
+	}
+
+	public Activity getActivity()
+	{
+		return this;
+	}
+
+	public ExecutorService getThreadPool()
+	{
+		return thread_pool;
+	}
+}
@@ -0,0 +1,88 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** execute() from the bridge: finding the action, checking its arguments, running it and completing the callback. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark
+{
+	Harness harness;
+	final JSONArray no_args = new JSONArray();
+	JSONArray title_args;
+	JSONArray batch_args;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, JSONException
+	{
+		harness = new Harness();
+		title_args = new JSONArray("[\"Title\"]");
+		batch_args = new JSONArray("[[{\"action\":\"setTitle\",\"args\":[\"Title\"]},{\"action\":\"setSubtitle\",\"args\":[\"Subtitle\"]},{\"action\":\"setDisplayHomeAsUpEnabled\",\"args\":[true]}]]");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	/** A getter, run on the UI thread. */
+	@Benchmark
+	public boolean getter() throws JSONException
+	{
+		return harness.plugin.execute("getTitle", no_args, harness.callback());
+	}
+
+	/** A setter, run on the UI thread. */
+	@Benchmark
+	public boolean setter() throws JSONException
+	{
+		return harness.plugin.execute("setTitle", title_args, harness.callback());
+	}
+
+	/** A setter from its raw arguments, as Cordova calls it. */
+	@Benchmark
+	public boolean setterRaw() throws JSONException
+	{
+		return harness.plugin.execute("setTitle", "[\"Title\"]", harness.callback());
+	}
+
+	/** Three setters in one call. */
+	@Benchmark
+	public boolean batch() throws JSONException
+	{
+		return harness.plugin.execute("batch", batch_args, harness.callback());
+	}
+
+	/** An action the plugin doesn't have. */
+	@Benchmark
+	public boolean unknown() throws JSONException
+	{
+		return harness.plugin.execute("noSuchAction", no_args, harness.callback());
+	}
+}
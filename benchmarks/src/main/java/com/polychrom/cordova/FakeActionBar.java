@@ -0,0 +1,342 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.util.ArrayList;
+
+import android.app.ActionBar;
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.widget.SpinnerAdapter;
+
+/** An action bar that keeps its state like the platform's does (tab selection and listener calls included), without any views. */
+class FakeActionBar extends ActionBar
+{
+	class FakeTab extends Tab
+	{
+		int position = -1;
+		CharSequence text = null;
+		Drawable icon = null;
+		TabListener listener = null;
+
+		@Override
+		public int getPosition()
+		{
+			return position;
+		}
+
+		@Override
+		public Drawable getIcon()
+		{
+			return icon;
+		}
+
+		@Override
+		public CharSequence getText()
+		{
+			return text;
+		}
+
+		@Override
+		public Tab setIcon(Drawable icon)
+		{
+			this.icon = icon;
+			return this;
+		}
+
+		@Override
+		public Tab setText(CharSequence text)
+		{
+			this.text = text;
+			return this;
+		}
+
+		@Override
+		public Tab setTabListener(TabListener listener)
+		{
+			this.listener = listener;
+			return this;
+		}
+
+		@Override
+		public void select()
+		{
+			selectTab(this);
+		}
+	}
+
+	private final Context context;
+
+	private boolean showing = true;
+	private int display_options = DISPLAY_SHOW_HOME | DISPLAY_SHOW_TITLE;
+	private CharSequence title = null;
+	private CharSequence subtitle = null;
+	private int navigation_mode = NAVIGATION_MODE_STANDARD;
+
+	private final ArrayList<FakeTab> tabs = new ArrayList<FakeTab>();
+	private FakeTab selected_tab = null;
+
+	private SpinnerAdapter adapter = null;
+	private int selected_item = -1;
+
+	FakeActionBar(Context context)
+	{
+		this.context = context;
+	}
+
+	@Override
+	public void show()
+	{
+		showing = true;
+	}
+
+	@Override
+	public void hide()
+	{
+		showing = false;
+	}
+
+	@Override
+	public boolean isShowing()
+	{
+		return showing;
+	}
+
+	@Override
+	public int getHeight()
+	{
+		return 96;
+	}
+
+	@Override
+	public int getDisplayOptions()
+	{
+		return display_options;
+	}
+
+	@Override
+	public void setDisplayOptions(int options)
+	{
+		display_options = options;
+	}
+
+	private void setDisplayOption(int option, boolean enabled)
+	{
+		display_options = enabled? display_options | option : display_options & ~option;
+	}
+
+	@Override
+	public void setDisplayHomeAsUpEnabled(boolean showHomeAsUp)
+	{
+		setDisplayOption(DISPLAY_HOME_AS_UP, showHomeAsUp);
+	}
+
+	@Override
+	public void setDisplayShowHomeEnabled(boolean showHome)
+	{
+		setDisplayOption(DISPLAY_SHOW_HOME, showHome);
+	}
+
+	@Override
+	public void setDisplayShowTitleEnabled(boolean showTitle)
+	{
+		setDisplayOption(DISPLAY_SHOW_TITLE, showTitle);
+	}
+
+	@Override
+	public void setDisplayUseLogoEnabled(boolean useLogo)
+	{
+		setDisplayOption(DISPLAY_USE_LOGO, useLogo);
+	}
+
+	@Override
+	public void setHomeButtonEnabled(boolean enabled)
+	{
+	}
+
+	@Override
+	public CharSequence getTitle()
+	{
+		return title;
+	}
+
+	@Override
+	public void setTitle(CharSequence title)
+	{
+		this.title = title;
+	}
+
+	@Override
+	public CharSequence getSubtitle()
+	{
+		return subtitle;
+	}
+
+	@Override
+	public void setSubtitle(CharSequence subtitle)
+	{
+		this.subtitle = subtitle;
+	}
+
+	@Override
+	public void setIcon(Drawable icon)
+	{
+	}
+
+	@Override
+	public void setLogo(Drawable logo)
+	{
+	}
+
+	@Override
+	public int getNavigationMode()
+	{
+		return navigation_mode;
+	}
+
+	@Override
+	public void setNavigationMode(int mode)
+	{
+		if(mode == navigation_mode)
+		{
+			return;
+		}
+
+		final int previous = navigation_mode;
+		navigation_mode = mode;
+
+		// As on the platform, entering tab mode selects the first tab if there's no selection
+		if(previous == NAVIGATION_MODE_TABS)
+		{
+			selectTab(null);
+		}
+		else if(mode == NAVIGATION_MODE_TABS && !tabs.isEmpty())
+		{
+			selectTab(tabs.get(0));
+		}
+	}
+
+	@Override
+	public int getNavigationItemCount()
+	{
+		switch(navigation_mode)
+		{
+			case NAVIGATION_MODE_TABS: return tabs.size();
+			case NAVIGATION_MODE_LIST: return adapter == null? 0 : adapter.getCount();
+			default: return 0;
+		}
+	}
+
+	@Override
+	public int getSelectedNavigationIndex()
+	{
+		switch(navigation_mode)
+		{
+			case NAVIGATION_MODE_TABS: return selected_tab == null? -1 : selected_tab.position;
+			case NAVIGATION_MODE_LIST: return selected_item;
+			default: return -1;
+		}
+	}
+
+	@Override
+	public void setSelectedNavigationItem(int position)
+	{
+		switch(navigation_mode)
+		{
+			case NAVIGATION_MODE_TABS:
+				selectTab(tabs.get(position));
+				break;
+			case NAVIGATION_MODE_LIST:
+				selected_item = position;
+				break;
+			default:
+				throw new IllegalStateException("setSelectedNavigationIndex not valid for current navigation mode");
+		}
+	}
+
+	@Override
+	public void setListNavigationCallbacks(SpinnerAdapter adapter, OnNavigationListener callback)
+	{
+		this.adapter = adapter;
+		selected_item = adapter != null && adapter.getCount() > 0? 0 : -1;
+	}
+
+	/** @return The adapter given to setListNavigationCallbacks. */
+	SpinnerAdapter getAdapter()
+	{
+		return adapter;
+	}
+
+	@Override
+	public Tab newTab()
+	{
+		return new FakeTab();
+	}
+
+	@Override
+	public void addTab(Tab tab)
+	{
+		final FakeTab fake = (FakeTab)tab;
+		if(fake.listener == null)
+		{
+			throw new IllegalStateException("Action Bar Tab must have a Callback");
+		}
+
+		fake.position = tabs.size();
+		tabs.add(fake);
+
+		if(tabs.size() == 1)
+		{
+			selectTab(fake);
+		}
+	}
+
+	@Override
+	public void removeAllTabs()
+	{
+		if(selected_tab != null)
+		{
+			selectTab(null);
+		}
+
+		for(FakeTab tab: tabs)
+		{
+			tab.position = -1;
+		}
+
+		tabs.clear();
+	}
+
+	/** @return The tabs, in order. */
+	ArrayList<FakeTab> getTabs()
+	{
+		return tabs;
+	}
+
+	private void selectTab(FakeTab tab)
+	{
+		if(navigation_mode != NAVIGATION_MODE_TABS)
+		{
+			return;
+		}
+
+		if(tab == selected_tab)
+		{
+			if(tab != null) tab.listener.onTabReselected(tab, null);
+			return;
+		}
+
+		if(selected_tab != null) selected_tab.listener.onTabUnselected(selected_tab, null);
+		selected_tab = tab;
+		if(tab != null) tab.listener.onTabSelected(tab, null);
+	}
+
+	@Override
+	public Context getThemedContext()
+	{
+		return context;
+	}
+}
@@ -0,0 +1,224 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.util.ArrayList;
+
+import android.graphics.drawable.Drawable;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.SubMenu;
+
+/** A menu that keeps its items ordered and looks them up like the platform's MenuBuilder does, without any views. */
+class FakeMenu implements Menu
+{
+	static class Item implements MenuItem
+	{
+		final int id;
+		final int order;
+		CharSequence title;
+		CharSequence title_condensed = null;
+		Drawable icon = null;
+		int show = SHOW_AS_ACTION_NEVER;
+		Sub sub_menu = null;
+
+		Item(int id, int order, CharSequence title)
+		{
+			this.id = id;
+			this.order = order;
+			this.title = title;
+		}
+
+		@Override
+		public int getItemId()
+		{
+			return id;
+		}
+
+		@Override
+		public int getOrder()
+		{
+			return order;
+		}
+
+		@Override
+		public CharSequence getTitle()
+		{
+			return title;
+		}
+
+		@Override
+		public MenuItem setTitle(CharSequence title)
+		{
+			this.title = title;
+			return this;
+		}
+
+		@Override
+		public MenuItem setTitleCondensed(CharSequence title)
+		{
+			title_condensed = title;
+			return this;
+		}
+
+		@Override
+		public Drawable getIcon()
+		{
+			return icon;
+		}
+
+		@Override
+		public MenuItem setIcon(Drawable icon)
+		{
+			this.icon = icon;
+			return this;
+		}
+
+		@Override
+		public void setShowAsAction(int actionEnum)
+		{
+			show = actionEnum;
+		}
+
+		@Override
+		public boolean hasSubMenu()
+		{
+			return sub_menu != null;
+		}
+
+		@Override
+		public SubMenu getSubMenu()
+		{
+			return sub_menu;
+		}
+	}
+
+	static class Sub extends FakeMenu implements SubMenu
+	{
+		final Item item;
+		CharSequence header_title = null;
+		Drawable header_icon = null;
+
+		Sub(Item item)
+		{
+			this.item = item;
+			item.sub_menu = this;
+		}
+
+		@Override
+		public SubMenu setHeaderTitle(CharSequence title)
+		{
+			header_title = title;
+			return this;
+		}
+
+		@Override
+		public SubMenu setHeaderIcon(Drawable icon)
+		{
+			header_icon = icon;
+			return this;
+		}
+
+		@Override
+		public void clearHeader()
+		{
+			header_title = null;
+			header_icon = null;
+		}
+
+		@Override
+		public SubMenu setIcon(Drawable icon)
+		{
+			item.setIcon(icon);
+			return this;
+		}
+
+		@Override
+		public MenuItem getItem()
+		{
+			return item;
+		}
+	}
+
+	final ArrayList<Item> items = new ArrayList<Item>();
+
+	@Override
+	public MenuItem add(int groupId, int itemId, int order, CharSequence title)
+	{
+		Item item = new Item(itemId, order, title);
+		items.add(insertIndex(order), item);
+		return item;
+	}
+
+	@Override
+	public SubMenu addSubMenu(int groupId, int itemId, int order, CharSequence title)
+	{
+		Item item = new Item(itemId, order, title);
+		items.add(insertIndex(order), item);
+		return new Sub(item);
+	}
+
+	// After every item with the same or a lower order, searched from the end like MenuBuilder.findInsertIndex
+	private int insertIndex(int order)
+	{
+		for(int i = items.size() - 1; i >= 0; --i)
+		{
+			if(items.get(i).order <= order)
+			{
+				return i + 1;
+			}
+		}
+
+		return 0;
+	}
+
+	@Override
+	public void removeItem(int id)
+	{
+		for(int i = 0; i < items.size(); ++i)
+		{
+			if(items.get(i).id == id)
+			{
+				items.remove(i);
+				return;
+			}
+		}
+	}
+
+	@Override
+	public MenuItem findItem(int id)
+	{
+		for(Item item: items)
+		{
+			if(item.id == id)
+			{
+				return item;
+			}
+			else if(item.sub_menu != null)
+			{
+				MenuItem found = item.sub_menu.findItem(id);
+				if(found != null)
+				{
+					return found;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void clear()
+	{
+		items.clear();
+	}
+
+	@Override
+	public int size()
+	{
+		return items.size();
+	}
+}
@@ -0,0 +1,201 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.api.CallbackContext;
+import org.apache.cordova.api.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import android.os.Looper;
+
+/**! The plugin running in a BenchActivity, as Cordova would run it.
+ * 
+ * The thread that creates the harness becomes the UI thread: UI thread actions run straight away on it, and anything posted
+ * to it (icons delivered by the loader, for example) runs when runPending() is called.
+ */
+class Harness
+{
+	static final String PAGE = "file:///android_asset/www/index.html";
+	// Icons available to the page, as img/icon-<n>.png
+	static final int ICON_COUNT = 64;
+
+	final BenchActivity activity;
+	final CordovaWebView web_view;
+	final ActionBarPlugin plugin;
+
+	private int next_callback = 0;
+
+	/** A callback that remembers how its call ended. */
+	static class Callback extends CallbackContext
+	{
+		PluginResult result = null;
+
+		Callback(String id, CordovaWebView web_view)
+		{
+			super(id, web_view);
+		}
+
+		@Override
+		public void sendPluginResult(PluginResult result)
+		{
+			this.result = result;
+			super.sendPluginResult(result);
+		}
+	}
+
+	Harness() throws IOException
+	{
+		Looper.prepareMainLooper();
+
+		activity = new BenchActivity();
+		activity.assets.add("www/index.html", "<!DOCTYPE html>".getBytes("UTF-8"));
+		for(int i = 0; i < ICON_COUNT; ++i)
+		{
+			activity.assets.add("www/img/icon-" + i + ".png", png(64, 64));
+		}
+
+		web_view = new CordovaWebView(PAGE);
+		plugin = new ActionBarPlugin();
+		plugin.initialize(activity, web_view);
+	}
+
+	/** @return A callback for a new call. */
+	Callback callback()
+	{
+		return new Callback("ActionBar" + next_callback++, web_view);
+	}
+
+	/** Run an action from its raw arguments as Cordova does, failing if it doesn't succeed straight away. */
+	void run(String action, String raw_args) throws JSONException
+	{
+		Callback callback = callback();
+		if(!plugin.execute(action, raw_args, callback))
+		{
+			throw new IllegalStateException("Unknown action: " + action);
+		}
+
+		if(callback.result == null || callback.result.getStatus() != PluginResult.Status.OK)
+		{
+			throw new IllegalStateException(action + " failed: " + (callback.result == null? "no result" : callback.result.getMessage()));
+		}
+	}
+
+	/** Run whatever has been posted to the UI thread. */
+	int runPending()
+	{
+		return Looper.getMainLooper().runPending();
+	}
+
+	/** Wait for the page's asset index (built in the background once the page is known) to be ready. */
+	void awaitAssetIndex() throws InterruptedException
+	{
+		for(int i = 0; i < 1000; ++i)
+		{
+			final AssetIndex index = plugin.asset_index;
+			if(index != null && index.contains("www/index.html") != null)
+			{
+				return;
+			}
+
+			Thread.sleep(5);
+		}
+
+		throw new IllegalStateException("Asset index wasn't built");
+	}
+
+	void close()
+	{
+		plugin.onDestroy();
+		activity.shutdown();
+	}
+
+	/** @return Raw arguments (as Cordova passes them to execute) for a list of JSON values. */
+	static String args(String... values)
+	{
+		StringBuilder args = new StringBuilder("[");
+		for(int i = 0; i < values.length; ++i)
+		{
+			if(i > 0) args.append(',');
+			args.append(values[i]);
+		}
+
+		return args.append(']').toString();
+	}
+
+	static String quote(String value)
+	{
+		return JSONObject.quote(value);
+	}
+
+	/**! A menu definition with size items on every level, the first item of each level (other than the last) being a sub-menu.
+	 * 
+	 * variant changes the text and visibility of every other item and drops the last one, as the next screen's menu might.
+	 */
+	static String menu(int size, int depth, boolean variant, boolean icons)
+	{
+		StringBuilder json = new StringBuilder();
+		appendMenu(json, "", size, depth, variant, icons);
+		return json.toString();
+	}
+
+	private static void appendMenu(StringBuilder json, String path, int size, int depth, boolean variant, boolean icons)
+	{
+		final int count = variant? Math.max(1, size - 1) : size;
+
+		json.append('[');
+		for(int i = 0; i < count; ++i)
+		{
+			final String id = path + i;
+			final boolean changed = variant && i % 2 == 1;
+
+			if(i > 0) json.append(',');
+			json.append("{\"id\":\"").append(id).append("\",\"text\":\"").append(changed? "Other " : "Item ").append(id).append('"');
+			if(icons) json.append(",\"icon\":\"img/icon-").append(i % ICON_COUNT).append(".png\"");
+
+			if(i == 0 && depth > 1)
+			{
+				json.append(",\"header\":{\"title\":\"Menu ").append(id).append("\"},\"items\":");
+				appendMenu(json, id + ".", size, depth - 1, variant, icons);
+			}
+			else
+			{
+				json.append(",\"show\":").append(changed? 0 : i < 2? 6 : 1);
+			}
+
+			json.append('}');
+		}
+		json.append(']');
+	}
+
+	/** @return A tab or list navigation definition of count items, each with an icon. */
+	static String items(int count, String prefix)
+	{
+		StringBuilder json = new StringBuilder("[");
+		for(int i = 0; i < count; ++i)
+		{
+			if(i > 0) json.append(',');
+			json.append("{\"text\":\"").append(prefix).append(' ').append(i).append("\",\"icon\":\"img/icon-").append(i % ICON_COUNT).append(".png\"}");
+		}
+
+		return json.append(']').toString();
+	}
+
+	/** @return The start of a PNG file of the given size: signature and header chunk, which is all BitmapFactory reads. */
+	static byte[] png(int width, int height)
+	{
+		return new byte[] {
+			(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n',
+			0, 0, 0, 13, 'I', 'H', 'D', 'R',
+			(byte)(width >>> 24), (byte)(width >>> 16), (byte)(width >>> 8), (byte)width,
+			(byte)(height >>> 24), (byte)(height >>> 16), (byte)(height >>> 8), (byte)height,
+			8, 6, 0, 0, 0
+		};
+	}
+}
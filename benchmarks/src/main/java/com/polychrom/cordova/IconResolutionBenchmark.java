@@ -0,0 +1,135 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.graphics.drawable.Drawable;
+
+/**! Looking up relative icon paths (as the icon loader's workers do) against the page's base path, for decoded icons.
+ * 
+ * The assets are in memory, so the difference between the cases is the plugin's own work rather than storage speed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IconResolutionBenchmark
+{
+	Harness harness;
+	MethodHandle get_drawable;
+	String[] bases;
+	int size;
+	int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, JSONException, InterruptedException, ReflectiveOperationException
+	{
+		harness = new Harness();
+
+		// Any UI thread action picks up the page's base path
+		harness.run("setTitle", "[\"Icons\"]");
+		harness.awaitAssetIndex();
+		bases = harness.plugin.resolution.bases;
+		size = harness.plugin.icon_size;
+
+		Method method = ActionBarPlugin.class.getDeclaredMethod("getDrawableForURI", String.class, int.class);
+		method.setAccessible(true);
+		get_drawable = MethodHandles.lookup().unreflect(method);
+
+		// Decode every icon once
+		for(int i = 0; i < Harness.ICON_COUNT; ++i)
+		{
+			if(drawable("img/icon-" + i + ".png") == null)
+			{
+				throw new IllegalStateException("img/icon-" + i + ".png didn't load");
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	private Drawable drawable(String uri)
+	{
+		try
+		{
+			return (Drawable)get_drawable.invoke(harness.plugin, uri, size);
+		}
+		catch (Throwable e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+
+	private String nextIcon()
+	{
+		return "img/icon-" + (next++ % Harness.ICON_COUNT) + ".png";
+	}
+
+	/** Path already resolved, icon already decoded. */
+	@Benchmark
+	public Drawable resolved()
+	{
+		return drawable(nextIcon());
+	}
+
+	/** A path already known not to exist. */
+	@Benchmark
+	public Drawable knownMissing()
+	{
+		return drawable("img/missing-" + (next++ % Harness.ICON_COUNT) + ".png");
+	}
+
+	/** Path not resolved yet (as after navigating), checked against the asset index. */
+	@Benchmark
+	public Drawable unresolvedIndexed()
+	{
+		harness.plugin.resolution = new ActionBarPlugin.Resolution(bases);
+		return drawable(nextIcon());
+	}
+
+	/** Path not resolved yet and no asset index, so the asset is probed by opening it. */
+	@Benchmark
+	public Drawable unresolvedProbed()
+	{
+		final AssetIndex index = harness.plugin.asset_index;
+		harness.plugin.asset_index = null;
+		harness.plugin.resolution = new ActionBarPlugin.Resolution(bases);
+
+		try
+		{
+			return drawable(nextIcon());
+		}
+		finally
+		{
+			harness.plugin.asset_index = index;
+		}
+	}
+}
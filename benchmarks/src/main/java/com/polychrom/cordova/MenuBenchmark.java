@@ -0,0 +1,109 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**! Menu definitions: parsing them, building them into a fresh menu and switching a live menu between two of them.
+ * 
+ * Definitions have size items on each of depth levels (see Harness.menu()) and no icons, so only the plugin's own work is
+ * measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MenuBenchmark
+{
+	@Param({ "4", "16", "64" })
+	int size;
+
+	@Param({ "1", "2", "4" })
+	int depth;
+
+	Harness harness;
+	String[] raw_args;
+	int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, JSONException
+	{
+		harness = new Harness();
+
+		final String a = Harness.menu(size, depth, false, false);
+		final String b = Harness.menu(size, depth, true, false);
+		raw_args = new String[] { Harness.args(a), Harness.args(b) };
+
+		harness.run("registerMenu", Harness.args(a, Harness.quote("a")));
+		harness.run("registerMenu", Harness.args(b, Harness.quote("b")));
+
+		// A live menu for setMenu/useMenu to reconcile
+		harness.run("useMenu", Harness.args(Harness.quote("a")));
+		harness.plugin.onMessage("onCreateOptionsMenu", new FakeMenu());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	/** The streaming read setMenu does on the bridge thread. */
+	@Benchmark
+	public Definition parseDefinition() throws IOException
+	{
+		return Definition.fromArguments(raw_args[0], new JSONArray());
+	}
+
+	/** For comparison: what parsing the same arguments into org.json objects costs. */
+	@Benchmark
+	public JSONArray parseJSONArray() throws JSONException
+	{
+		return new JSONArray(raw_args[0]);
+	}
+
+	/** Build the current definition into a menu from scratch, as when Android asks for the options menu. */
+	@Benchmark
+	public FakeMenu buildMenu()
+	{
+		FakeMenu menu = new FakeMenu();
+		harness.plugin.onMessage("onCreateOptionsMenu", menu);
+		return menu;
+	}
+
+	/** setMenu with alternating definitions: parse, then reconcile the live menu. */
+	@Benchmark
+	public void setMenu() throws JSONException
+	{
+		harness.run("setMenu", raw_args[next++ & 1]);
+	}
+
+	/** useMenu with alternating registered definitions: only the reconcile. */
+	@Benchmark
+	public void useMenu() throws JSONException
+	{
+		harness.run("useMenu", (next++ & 1) == 0? "[\"a\"]" : "[\"b\"]");
+	}
+}
@@ -0,0 +1,85 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import android.view.View;
+
+/** List navigation with size items, each with an icon: replacing the items, and scrolling the drop-down through them. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigationBenchmark
+{
+	@Param({ "16", "1024", "65536" })
+	int size;
+
+	// Rows on screen in the drop-down, which are recycled as it scrolls
+	static final int ROWS = 8;
+
+	Harness harness;
+	ActionBarPlugin.NavigationAdapter adapter;
+	Definition[] definitions;
+	final View[] rows = new View[ROWS];
+	int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, JSONException
+	{
+		harness = new Harness();
+		harness.run("setNavigationMode", "[1]");
+		harness.run("setListNavigation", Harness.args(Harness.items(size, "Item")));
+
+		adapter = harness.plugin.navigation_adapter;
+		definitions = new Definition[] { Definition.fromJSON(Harness.items(size, "Item")), Definition.fromJSON(Harness.items(size, "Other")) };
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	/** Replace the items with an already parsed definition (cancelling icon loads and warming the first rows). */
+	@Benchmark
+	public int setItems()
+	{
+		adapter.setItems(definitions[next++ & 1]);
+		return harness.runPending();
+	}
+
+	/** Show the next item in a recycled drop-down row, applying any icons that have arrived. */
+	@Benchmark
+	public View getDropDownView()
+	{
+		final int position = next++ % size;
+		final int row = position % ROWS;
+
+		rows[row] = adapter.getDropDownView(position, rows[row], null);
+		harness.runPending();
+		return rows[row];
+	}
+}
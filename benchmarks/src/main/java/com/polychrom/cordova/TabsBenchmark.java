@@ -0,0 +1,77 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Tab bars of size tabs, each with an icon (served from the icon cache once warm), in tab navigation mode. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabsBenchmark
+{
+	@Param({ "2", "8", "32" })
+	int size;
+
+	Harness harness;
+	String[] raw_args;
+	int next = 0;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, JSONException
+	{
+		harness = new Harness();
+		harness.run("setNavigationMode", "[2]");
+
+		final String a = Harness.items(size, "Tab");
+		final String b = Harness.items(size, "Other tab");
+		raw_args = new String[] { Harness.args(a), Harness.args(b) };
+
+		harness.run("registerTabs", Harness.args(a, Harness.quote("a")));
+		harness.run("registerTabs", Harness.args(b, Harness.quote("b")));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		harness.close();
+	}
+
+	/** setTabs with alternating definitions: parse, then rebuild the tab bar. */
+	@Benchmark
+	public int setTabs() throws JSONException
+	{
+		harness.run("setTabs", raw_args[next++ & 1]);
+		return harness.runPending();
+	}
+
+	/** useTabs with alternating registered definitions: only the rebuild. */
+	@Benchmark
+	public int useTabs() throws JSONException
+	{
+		harness.run("useTabs", (next++ & 1) == 0? "[\"a\"]" : "[\"b\"]");
+		return harness.runPending();
+	}
+}
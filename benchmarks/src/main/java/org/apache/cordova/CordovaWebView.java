@@ -0,0 +1,51 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package org.apache.cordova;
+
+import org.apache.cordova.api.PluginResult;
+
+/** Shadow of org.apache.cordova.CordovaWebView: a page URL, and counts of what was sent to it. */
+public class CordovaWebView
+{
+	private volatile String url;
+
+	/** Shadow only. */
+	public int results_sent = 0;
+	/** Shadow only. */
+	public int scripts_sent = 0;
+
+	/** Shadow only. */
+	public CordovaWebView(String url)
+	{
+		this.url = url;
+	}
+
+	/** Shadow only: navigate. */
+	public void setUrl(String url)
+	{
+		this.url = url;
+	}
+
+	public String getUrl()
+	{
+		return url;
+	}
+
+	public String getOriginalUrl()
+	{
+		return url;
+	}
+
+	public void sendJavascript(String statement)
+	{
+		++scripts_sent;
+	}
+
+	public void sendPluginResult(PluginResult result, String callbackId)
+	{
+		++results_sent;
+	}
+}
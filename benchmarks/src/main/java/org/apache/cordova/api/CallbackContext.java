@@ -0,0 +1,67 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package org.apache.cordova.api;
+
+import org.apache.cordova.CordovaWebView;
+import org.json.JSONObject;
+
+public class CallbackContext
+{
+	private final String callbackId;
+	private final CordovaWebView webView;
+	private boolean finished = false;
+
+	public CallbackContext(String callbackId, CordovaWebView webView)
+	{
+		this.callbackId = callbackId;
+		this.webView = webView;
+	}
+
+	public boolean isFinished()
+	{
+		return finished;
+	}
+
+	public String getCallbackId()
+	{
+		return callbackId;
+	}
+
+	public void sendPluginResult(PluginResult pluginResult)
+	{
+		synchronized(this)
+		{
+			if(finished)
+			{
+				return;
+			}
+
+			finished = !pluginResult.getKeepCallback();
+		}
+
+		webView.sendPluginResult(pluginResult, callbackId);
+	}
+
+	public void success(JSONObject message)
+	{
+		sendPluginResult(new PluginResult(PluginResult.Status.OK, message));
+	}
+
+	public void success(String message)
+	{
+		sendPluginResult(new PluginResult(PluginResult.Status.OK, message));
+	}
+
+	public void success()
+	{
+		sendPluginResult(new PluginResult(PluginResult.Status.OK));
+	}
+
+	public void error(String message)
+	{
+		sendPluginResult(new PluginResult(PluginResult.Status.ERROR, message));
+	}
+}
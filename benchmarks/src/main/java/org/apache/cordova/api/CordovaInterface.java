@@ -0,0 +1,16 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package org.apache.cordova.api;
+
+import java.util.concurrent.ExecutorService;
+
+import android.app.Activity;
+
+public interface CordovaInterface
+{
+	Activity getActivity();
+	ExecutorService getThreadPool();
+}
@@ -0,0 +1,46 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package org.apache.cordova.api;
+
+import org.apache.cordova.CordovaWebView;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+public class CordovaPlugin
+{
+	public CordovaWebView webView;
+	public CordovaInterface cordova;
+
+	public void initialize(CordovaInterface cordova, CordovaWebView webView)
+	{
+		this.cordova = cordova;
+		this.webView = webView;
+	}
+
+	public boolean execute(String action, String rawArgs, CallbackContext callbackContext) throws JSONException
+	{
+		JSONArray args = new JSONArray(rawArgs);
+		return execute(action, args, callbackContext);
+	}
+
+	public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException
+	{
+		return false;
+	}
+
+	public Object onMessage(String id, Object data)
+	{
+		return null;
+	}
+
+	public void onReset()
+	{
+	}
+
+	public void onDestroy()
+	{
+	}
+}
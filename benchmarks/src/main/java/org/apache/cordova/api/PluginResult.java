@@ -0,0 +1,57 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package org.apache.cordova.api;
+
+import org.json.JSONObject;
+
+public class PluginResult
+{
+	public enum Status
+	{
+		NO_RESULT, OK, CLASS_NOT_FOUND_EXCEPTION, ILLEGAL_ACCESS_EXCEPTION, INSTANTIATION_EXCEPTION, MALFORMED_URL_EXCEPTION,
+		IO_EXCEPTION, INVALID_ACTION, JSON_EXCEPTION, ERROR
+	}
+
+	private final Status status;
+	private final String message;
+	private boolean keepCallback = false;
+
+	public PluginResult(Status status)
+	{
+		this(status, (String)null);
+	}
+
+	public PluginResult(Status status, String message)
+	{
+		this.status = status;
+		this.message = message;
+	}
+
+	public PluginResult(Status status, JSONObject message)
+	{
+		this(status, message.toString());
+	}
+
+	public Status getStatus()
+	{
+		return status;
+	}
+
+	public String getMessage()
+	{
+		return message;
+	}
+
+	public boolean getKeepCallback()
+	{
+		return keepCallback;
+	}
+
+	public void setKeepCallback(boolean b)
+	{
+		keepCallback = b;
+	}
+}
@@ -0,0 +1,345 @@
+// Copyright (C) 2013 Polychrom Pty Ltd
+//
+// This program is licensed under the 3-clause "Modified" BSD license,
+// see LICENSE file for full definition.
+
+package com.polychrom.cordova;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**! HttpIconCache against a local HTTP server.
+ *
+ * Revalidation runs on a queue the test drains itself, so each test decides exactly when the background requests happen.
+ */
+public class HttpIconCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** Serves a fixed set of paths, each with a body and ETag, honouring If-None-Match. */
+	static class Server implements HttpHandler
+	{
+		final HttpServer server;
+		final HashMap<String, byte[]> bodies = new HashMap<String, byte[]>();
+		final HashMap<String, Integer> statuses = new HashMap<String, Integer>();
+		final List<String> requests = new ArrayList<String>();
+
+		Server() throws IOException
+		{
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext("/", this);
+			server.start();
+		}
+
+		String url(String path)
+		{
+			return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+		}
+
+		synchronized void put(String path, String body) throws IOException
+		{
+			bodies.put(path, body.getBytes("UTF-8"));
+		}
+
+		synchronized void fail(String path, int status)
+		{
+			statuses.put(path, status);
+		}
+
+		public void handle(HttpExchange exchange) throws IOException
+		{
+			final String path = exchange.getRequestURI().getPath();
+			final String if_none_match = exchange.getRequestHeaders().getFirst("If-None-Match");
+			final byte[] body;
+			final Integer status;
+
+			synchronized(this)
+			{
+				requests.add(path + (if_none_match != null? " if-none-match" : ""));
+				body = bodies.get(path);
+				status = statuses.get(path);
+			}
+
+			try
+			{
+				if(status != null)
+				{
+					exchange.sendResponseHeaders(status, -1);
+					return;
+				}
+				else if(body == null)
+				{
+					exchange.sendResponseHeaders(404, -1);
+					return;
+				}
+
+				final String etag = "\"" + Integer.toHexString(new String(body, "UTF-8").hashCode()) + "\"";
+				if(etag.equals(if_none_match))
+				{
+					exchange.sendResponseHeaders(304, -1);
+					return;
+				}
+
+				exchange.getResponseHeaders().set("ETag", etag);
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+			finally
+			{
+				exchange.close();
+			}
+		}
+
+		synchronized List<String> takeRequests()
+		{
+			List<String> taken = new ArrayList<String>(requests);
+			requests.clear();
+			return taken;
+		}
+
+		void stop()
+		{
+			server.stop(0);
+		}
+	}
+
+	/** Runs queued work only when drained. */
+	static class Queue implements Executor
+	{
+		final List<Runnable> pending = new ArrayList<Runnable>();
+
+		public synchronized void execute(Runnable runnable)
+		{
+			pending.add(runnable);
+		}
+
+		void drain()
+		{
+			while(true)
+			{
+				Runnable next;
+				synchronized(this)
+				{
+					if(pending.isEmpty()) return;
+					next = pending.remove(0);
+				}
+
+				next.run();
+			}
+		}
+	}
+
+	private Server server;
+	private Queue queue;
+	private File directory;
+	private final List<String> changed = new ArrayList<String>();
+
+	@Before
+	public void setUp() throws IOException
+	{
+		server = new Server();
+		queue = new Queue();
+		directory = folder.newFolder("icons");
+	}
+
+	@After
+	public void tearDown()
+	{
+		server.stop();
+	}
+
+	private HttpIconCache cache(long max_bytes)
+	{
+		HttpIconCache cache = new HttpIconCache(directory, max_bytes, queue);
+		cache.setListener(new HttpIconCache.Listener()
+		{
+			public void onIconChanged(String url)
+			{
+				changed.add(url);
+			}
+		});
+
+		return cache;
+	}
+
+	private static String read(InputStream in) throws IOException
+	{
+		try
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for(int read; (read = in.read(buffer)) != -1;)
+			{
+				out.write(buffer, 0, read);
+			}
+
+			return out.toString("UTF-8");
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	@Test
+	public void firstFetchIsStoredAndServedFromDisk() throws IOException
+	{
+		server.put("/a.png", "first");
+		HttpIconCache cache = cache(HttpIconCache.DEFAULT_MAX_BYTES);
+
+		assertEquals("first", read(cache.open(server.url("/a.png"))));
+		assertEquals("first", read(cache.open(server.url("/a.png"))));
+		queue.drain();
+
+		// Fetched once; already fresh this session, so not revalidated
+		assertArrayEquals(new String[] { "/a.png" }, server.takeRequests().toArray());
+		assertTrue(cache.size() > 0);
+	}
+
+	@Test
+	public void unchangedIconIsRevalidatedOncePerSession() throws IOException
+	{
+		server.put("/a.png", "first");
+		cache(HttpIconCache.DEFAULT_MAX_BYTES).open(server.url("/a.png")).close();
+		server.takeRequests();
+
+		// A new session serves the stored copy and revalidates it in the background
+		HttpIconCache cache = cache(HttpIconCache.DEFAULT_MAX_BYTES);
+		assertEquals("first", read(cache.open(server.url("/a.png"))));
+		assertEquals("first", read(cache.open(server.url("/a.png"))));
+		assertTrue(server.takeRequests().isEmpty());
+
+		queue.drain();
+		assertArrayEquals(new String[] { "/a.png if-none-match" }, server.takeRequests().toArray());
+		assertTrue(changed.isEmpty());
+	}
+
+	@Test
+	public void changedIconIsReplacedAndReported() throws IOException
+	{
+		server.put("/a.png", "first");
+		cache(HttpIconCache.DEFAULT_MAX_BYTES).open(server.url("/a.png")).close();
+
+		server.put("/a.png", "second");
+		HttpIconCache cache = cache(HttpIconCache.DEFAULT_MAX_BYTES);
+		assertEquals("first", read(cache.open(server.url("/a.png"))));
+
+		queue.drain();
+		assertArrayEquals(new String[] { server.url("/a.png") }, changed.toArray());
+		assertEquals("second", read(cache.open(server.url("/a.png"))));
+	}
+
+	@Test
+	public void leastRecentlyUsedIconsAreEvicted() throws IOException, InterruptedException
+	{
+		server.put("/a.png", "0123456789");
+		server.put("/b.png", "0123456789");
+		server.put("/c.png", "0123456789");
+		HttpIconCache cache = cache(25);
+
+		cache.open(server.url("/a.png")).close();
+		// Modification times are the LRU order, and may only have second resolution
+		Thread.sleep(1100);
+		cache.open(server.url("/b.png")).close();
+		Thread.sleep(1100);
+		cache.open(server.url("/c.png")).close();
+
+		assertEquals(20, cache.size());
+		server.takeRequests();
+
+		cache.open(server.url("/b.png")).close();
+		cache.open(server.url("/c.png")).close();
+		assertTrue(server.takeRequests().isEmpty());
+
+		cache.open(server.url("/a.png")).close();
+		assertArrayEquals(new String[] { "/a.png" }, server.takeRequests().toArray());
+
+		cache.setMaxBytes(0);
+		queue.drain();
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void iconLargerThanTheCacheIsStillServed() throws IOException
+	{
+		server.put("/a.png", "0123456789");
+		HttpIconCache cache = cache(5);
+
+		assertEquals("0123456789", read(cache.open(server.url("/a.png"))));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void missingIconIsNotFound() throws IOException
+	{
+		HttpIconCache cache = cache(HttpIconCache.DEFAULT_MAX_BYTES);
+
+		try
+		{
+			cache.open(server.url("/missing.png")).close();
+			fail();
+		}
+		catch (FileNotFoundException e)
+		{
+		}
+
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void serverErrorIsNotAMiss() throws IOException
+	{
+		server.fail("/a.png", 503);
+		HttpIconCache cache = cache(HttpIconCache.DEFAULT_MAX_BYTES);
+
+		try
+		{
+			cache.open(server.url("/a.png")).close();
+			fail();
+		}
+		catch (FileNotFoundException e)
+		{
+			fail("A server error was reported as a missing icon");
+		}
+		catch (IOException e)
+		{
+		}
+
+		server.fail("/gone.png", 410);
+		try
+		{
+			cache.open(server.url("/gone.png")).close();
+			fail();
+		}
+		catch (FileNotFoundException e)
+		{
+		}
+	}
+}